@@ -0,0 +1,71 @@
+package org.upgrad.upstac.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.upgrad.upstac.shared.BatchItemResult;
+import org.upgrad.upstac.testrequests.lab.CreateLabResultItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Time per lab result, sent one by one through the single update and as one bulk update
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LabResultBatchBenchmark {
+
+    static final int RESULTS = 500;
+
+    @State(Scope.Thread)
+    public static class LabTestsInProgress {
+        List<CreateLabResultItem> createLabResults;
+
+        @Setup(Level.Invocation)
+        public void prepare(SeededApplication application) {
+
+            createLabResults = new ArrayList<>();
+
+            for (int i = 0; i < RESULTS; i++) {
+                CreateLabResultItem createLabResult = new CreateLabResultItem();
+                createLabResult.setRequestId(application.labTestInProgressRequest().getRequestId());
+                createLabResult.setBloodPressure("120/80");
+                createLabResult.setHeartBeat("72");
+                createLabResult.setTemperature("98.6");
+                createLabResult.setOxygenLevel("97");
+                createLabResult.setResult(SeededApplication.createLabResult().getResult());
+                createLabResults.add(createLabResult);
+            }
+        }
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(RESULTS)
+    public int updateLabTestOneByOne(SeededApplication application, LabTestsInProgress labTests) {
+
+        for (CreateLabResultItem createLabResult : labTests.createLabResults)
+            application.testRequestUpdateService.updateLabTest(createLabResult.getRequestId(), createLabResult, application.tester);
+
+        return labTests.createLabResults.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESULTS)
+    public List<BatchItemResult> updateLabTestsInBulk(SeededApplication application, LabTestsInProgress labTests) {
+        return application.labResultBatchService.updateLabTests(labTests.createLabResults, application.tester);
+    }
+
+}
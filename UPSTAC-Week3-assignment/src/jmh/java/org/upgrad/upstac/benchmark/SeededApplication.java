@@ -0,0 +1,132 @@
+package org.upgrad.upstac.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.upgrad.upstac.UpstacApplication;
+import org.upgrad.upstac.testrequests.CreateTestRequest;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestService;
+import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.testrequests.consultation.CreateConsultationRequest;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultBatchService;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//The application against a fresh in-memory H2, seeded with datasetSize completed requests
+//so the lifecycle benchmarks run against tables of a known size
+@State(Scope.Benchmark)
+public class SeededApplication {
+
+    @Param("1000")
+    public int datasetSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    TestRequestService testRequestService;
+    TestRequestUpdateService testRequestUpdateService;
+    LabResultBatchService labResultBatchService;
+
+    User user;
+    User tester;
+    User doctor;
+
+
+    @Setup(Level.Trial)
+    public void start() {
+
+        context = SpringApplication.run(UpstacApplication.class,
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--server.port=0",
+                "--logging.level.root=WARN");
+
+        testRequestService = context.getBean(TestRequestService.class);
+        testRequestUpdateService = context.getBean(TestRequestUpdateService.class);
+        labResultBatchService = context.getBean(LabResultBatchService.class);
+
+        UserService userService = context.getBean(UserService.class);
+        user = userService.findByUserName("user");
+        tester = userService.findByUserName("tester");
+        doctor = userService.findByUserName("doctor");
+
+        for (int i = 0; i < datasetSize; i++)
+            completeRequest();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+
+    //Every request gets its own email and phone number, a person can only have a single request in progress
+    CreateTestRequest nextCreateTestRequest() {
+
+        long next = sequence.incrementAndGet();
+
+        CreateTestRequest createTestRequest = new CreateTestRequest();
+        createTestRequest.setName("someuser" + next);
+        createTestRequest.setGender(Gender.MALE);
+        createTestRequest.setAge(40);
+        createTestRequest.setAddress("some address");
+        createTestRequest.setEmail("someone" + next + "@somedomain.com");
+        createTestRequest.setPhoneNumber(String.valueOf(9000000000L + next));
+        createTestRequest.setPinCode(110001);
+        return createTestRequest;
+    }
+
+    static CreateLabResult createLabResult() {
+
+        CreateLabResult createLabResult = new CreateLabResult();
+        createLabResult.setBloodPressure("120/80");
+        createLabResult.setHeartBeat("72");
+        createLabResult.setTemperature("98.6");
+        createLabResult.setOxygenLevel("97");
+        createLabResult.setComments("seeded");
+        createLabResult.setResult(TestStatus.NEGATIVE);
+        return createLabResult;
+    }
+
+    static CreateConsultationRequest createConsultationRequest() {
+
+        CreateConsultationRequest createConsultationRequest = new CreateConsultationRequest();
+        createConsultationRequest.setSuggestion(DoctorSuggestion.NO_ISSUES);
+        createConsultationRequest.setComments("seeded");
+        return createConsultationRequest;
+    }
+
+
+    TestRequest initiatedRequest() {
+        return testRequestService.createTestRequestFrom(user, nextCreateTestRequest());
+    }
+
+    TestRequest labTestInProgressRequest() {
+        return testRequestUpdateService.assignForLabTest(initiatedRequest().getRequestId(), tester);
+    }
+
+    TestRequest labTestCompletedRequest() {
+        return testRequestUpdateService.updateLabTest(labTestInProgressRequest().getRequestId(), createLabResult(), tester);
+    }
+
+    TestRequest diagnosisInProcessRequest() {
+        return testRequestUpdateService.assignForConsultation(labTestCompletedRequest().getRequestId(), doctor);
+    }
+
+    TestRequest completeRequest() {
+        return testRequestUpdateService.updateConsultation(diagnosisInProcessRequest().getRequestId(), createConsultationRequest(), doctor);
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.upgrad.upstac.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.upgrad.upstac.testrequests.TestRequest;
+
+import java.util.concurrent.TimeUnit;
+
+//Creating a request and each of the four transitions, every invocation works on a request prepared in the source state
+//The preparation runs outside of the measurement, it is a per invocation setup
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TestRequestLifecycleBenchmark {
+
+    @State(Scope.Thread)
+    public static class InitiatedRequest {
+        Long requestId;
+
+        @Setup(Level.Invocation)
+        public void prepare(SeededApplication application) {
+            requestId = application.initiatedRequest().getRequestId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LabTestInProgressRequest {
+        Long requestId;
+
+        @Setup(Level.Invocation)
+        public void prepare(SeededApplication application) {
+            requestId = application.labTestInProgressRequest().getRequestId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LabTestCompletedRequest {
+        Long requestId;
+
+        @Setup(Level.Invocation)
+        public void prepare(SeededApplication application) {
+            requestId = application.labTestCompletedRequest().getRequestId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DiagnosisInProcessRequest {
+        Long requestId;
+
+        @Setup(Level.Invocation)
+        public void prepare(SeededApplication application) {
+            requestId = application.diagnosisInProcessRequest().getRequestId();
+        }
+    }
+
+
+    @Benchmark
+    public TestRequest createTestRequest(SeededApplication application) {
+        return application.testRequestService.createTestRequestFrom(application.user, application.nextCreateTestRequest());
+    }
+
+    @Benchmark
+    public TestRequest assignForLabTest(SeededApplication application, InitiatedRequest request) {
+        return application.testRequestUpdateService.assignForLabTest(request.requestId, application.tester);
+    }
+
+    @Benchmark
+    public TestRequest updateLabTest(SeededApplication application, LabTestInProgressRequest request) {
+        return application.testRequestUpdateService.updateLabTest(request.requestId, SeededApplication.createLabResult(), application.tester);
+    }
+
+    @Benchmark
+    public TestRequest assignForConsultation(SeededApplication application, LabTestCompletedRequest request) {
+        return application.testRequestUpdateService.assignForConsultation(request.requestId, application.doctor);
+    }
+
+    @Benchmark
+    public TestRequest updateConsultation(SeededApplication application, DiagnosisInProcessRequest request) {
+        return application.testRequestUpdateService.updateConsultation(request.requestId, SeededApplication.createConsultationRequest(), application.doctor);
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.upgrad.upstac.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.config.security.TokenProvider;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    TokenProvider tokenProvider;
+    Authentication authentication;
+    String token;
+
+
+    @Setup
+    public void setUp() {
+
+        tokenProvider = new TokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "secretKey", "BenchmarkSecret@%^%@^!@$!@$@#$#$#6763276327");
+
+        authentication = new UsernamePasswordAuthenticationToken("tester", "",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_TESTER")));
+        token = tokenProvider.generateToken(authentication);
+    }
+
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return tokenProvider.getUsernameFromToken(token);
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.upgrad.upstac.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.roles.Role;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRoleBenchmark {
+
+    User tester;
+
+
+    @Setup
+    public void setUp() {
+
+        Role role = new Role();
+        role.setName(UserRole.TESTER.name());
+
+        tester = new User();
+        tester.setUserName("tester");
+        tester.setRoles(Collections.singleton(role));
+    }
+
+
+    @Benchmark
+    public boolean doesUserHasRole_matching() {
+        return tester.doesUserHasRole("TESTER");
+    }
+
+    @Benchmark
+    public boolean doesUserHasRole_not_matching() {
+        return tester.doesUserHasRole("GOVERNMENT_AUTHORITY");
+    }
+
+    @Benchmark
+    public boolean hasRole_matching() {
+        return tester.hasRole(UserRole.TESTER);
+    }
+
+    @Benchmark
+    public boolean hasRole_not_matching() {
+        return tester.hasRole(UserRole.GOVERNMENT_AUTHORITY);
+    }
+
+    //The check as it was before the role mask, kept as the baseline
+    @Benchmark
+    public boolean streamScan_not_matching() {
+        return tester.getRoles().stream()
+                .filter(role -> role.getName().equalsIgnoreCase("GOVERNMENT_AUTHORITY"))
+                .findFirst()
+                .isPresent();
+    }
+
+}
@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AccountStatusException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -14,10 +15,15 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.auth.models.LoginRequest;
 import org.upgrad.upstac.auth.models.LoginResponse;
+import org.upgrad.upstac.auth.throttle.LoginThrottle;
+import org.upgrad.upstac.auth.throttle.LoginThrottledException;
 import org.upgrad.upstac.config.security.TokenProvider;
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.config.security.UpgradUserDetails;
+import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.UserService;
 
+import javax.servlet.http.HttpServletRequest;
+
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
 
 @RestController
@@ -30,55 +36,82 @@ public class AuthController {
 
     private UserService userService;
 
+    private LoginThrottle loginThrottle;
+
 
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
 
 
     @Autowired
-    public AuthController(AuthenticationManager authenticationManager, TokenProvider tokenProvider, UserService userService) {
+    public AuthController(AuthenticationManager authenticationManager, TokenProvider tokenProvider, UserService userService, LoginThrottle loginThrottle) {
         this.authenticationManager = authenticationManager;
         this.tokenProvider = tokenProvider;
         this.userService = userService;
+        this.loginThrottle = loginThrottle;
     }
 
     @PostMapping("/auth/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) throws AuthenticationException {
-
-        try {
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) throws AuthenticationException {
 
-            final Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUserName(),
-                            loginRequest.getPassword()
-                    )
-            );
+        String clientIp = loginThrottle.clientIpOf(request);
 
+        try {
 
-            if(userService.isApprovedUser( loginRequest.getUserName()) == false){
-                throw new AppException("User Not Approved");
-            }
-
+            //The password check runs on the login pool, the request thread only waits for it
+            final Authentication authentication = loginThrottle.check(loginRequest.getUserName(), clientIp,
+                    () -> authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(
+                                    loginRequest.getUserName(),
+                                    loginRequest.getPassword()
+                            )
+                    ));
 
+            //Accounts that are not approved were turned away before their password was checked
+            User user = rehashIfNeeded(((UpgradUserDetails) authentication.getPrincipal()).getUser(), loginRequest.getPassword());
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
-            final String token = tokenProvider.generateToken(authentication);
+            final String token = tokenProvider.generateToken(authentication, user);
             LoginResponse result = new LoginResponse(loginRequest.getUserName(), "Success", token);
 
             return ResponseEntity.ok(result);
 
 
-        } catch (AppException e) {
+        } catch (LoginThrottledException e) {
 
             throw new ResponseStatusException(
-                    HttpStatus.FORBIDDEN, e.getMessage(), e);
+                    HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e);
+        } catch (AccountStatusException e) {
+            logFailedLogin(loginRequest, clientIp, e);
+            throw new ResponseStatusException(
+                    HttpStatus.FORBIDDEN, "User Not Approved", e);
         }catch (AuthenticationException e) {
-            e.printStackTrace();
-            log.info("AuthenticationException" + e.getMessage());
+            logFailedLogin(loginRequest, clientIp, e);
             throw new ResponseStatusException(
                     HttpStatus.FORBIDDEN, "Bad credentials", e);
         }
 
     }
 
+    //Failed logins are never sampled, they are the trail of a password guessing attack
+    private static void logFailedLogin(LoginRequest loginRequest, String clientIp, AuthenticationException e) {
+        log.warn("login failed userName={} clientIp={} reason={}", loginRequest.getUserName(), clientIp, e.getClass().getSimpleName());
+    }
+
+    //A hash written with another algorithm or cost is replaced while the password is at hand
+    //Failing to hash or save it only means it is tried again on the next login
+    private User rehashIfNeeded(User user, String password) {
+
+        if (false == userService.needsRehash(user))
+            return user;
+
+        try {
+            String hash = loginThrottle.hash(() -> userService.toEncrypted(password));
+            return userService.rehashPassword(user, hash);
+        } catch (RuntimeException e) {
+            log.warn("Could not rehash the password of user {}", user.getId(), e);
+            return user;
+        }
+    }
+
 
 }
@@ -0,0 +1,162 @@
+package org.upgrad.upstac.auth.throttle;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.config.metrics.RequestJdbcStatistics;
+import org.upgrad.upstac.users.credentials.PasswordHashingPool;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//Keeps logins from taking every core, so a burst of them cannot starve the lab and consultation apis
+//Password checks run on the shared hashing pool, a login that finds its queue full is turned away at once
+//Logins are also rate limited per client address and per user name, before any hashing is done
+@Component
+public class LoginThrottle {
+
+    @Autowired
+    private PasswordHashingPool passwordHashingPool;
+
+    //A check still queued after this long is dropped, the client has likely given up by then
+    //A check that has started runs to the end, a running hash cannot be interrupted, so the wait can be a hash longer
+    @Value("${security.login.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    @Value("${security.login.user-capacity:10}")
+    private long userCapacity;
+
+    @Value("${security.login.user-refill-per-minute:5}")
+    private long userRefillPerMinute;
+
+    @Value("${security.login.ip-capacity:200}")
+    private long ipCapacity;
+
+    @Value("${security.login.ip-refill-per-minute:600}")
+    private long ipRefillPerMinute;
+
+    @Value("${security.login.max-tracked-keys:100000}")
+    private long maxTrackedKeys;
+
+    //Only behind a proxy that sets the header, otherwise clients could pick their own address
+    @Value("${security.login.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    private TokenBucketRateLimiter byUserName;
+
+    private TokenBucketRateLimiter byClientIp;
+
+    private final LongAdder rateLimited = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+
+    @PostConstruct
+    public void start() {
+
+        byUserName = new TokenBucketRateLimiter(userCapacity, userRefillPerMinute, maxTrackedKeys);
+        byClientIp = new TokenBucketRateLimiter(ipCapacity, ipRefillPerMinute, maxTrackedKeys);
+    }
+
+
+    //Runs the password check on the login pool and waits for its result, exceptions of the check are thrown as they are
+    //The address is charged first, so a client over its rate cannot use up the tokens of the user names it tries
+    public <T> T check(String userName, String clientIp, Supplier<T> passwordCheck) {
+
+        if (false == byClientIp.tryAcquire(clientIp) || false == byUserName.tryAcquire(keyOf(userName))) {
+            rateLimited.increment();
+            throw new LoginThrottledException("Too many login attempts, try again later");
+        }
+
+        return hash(passwordCheck);
+    }
+
+    //Runs other hashing done for a login on the same pool, without charging the rate limits again
+    //Whoever claims the work first wins, the pool thread by starting it or the caller by giving up on it while still queued
+    public <T> T hash(Supplier<T> hashing) {
+
+        Supplier<T> work = RequestJdbcStatistics.carriedOver(hashing);
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> result;
+
+        try {
+            result = passwordHashingPool.submit(() -> claimed.compareAndSet(false, true) ? work.get() : null);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new LoginThrottledException("Too many logins in progress, try again later");
+        }
+
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (TimeoutException e) {
+            if (false == claimed.compareAndSet(false, true))
+                return awaitStarted(result);
+            result.cancel(false);
+            timedOut.increment();
+            throw new LoginThrottledException("Too many logins in progress, try again later");
+        } catch (InterruptedException e) {
+            claimed.set(true);
+            Thread.currentThread().interrupt();
+            throw new LoginThrottledException("Login interrupted");
+        }
+    }
+
+    public String clientIpOf(HttpServletRequest request) {
+
+        String forwardedFor = trustForwardedFor ? request.getHeader("X-Forwarded-For") : null;
+
+        if (null == forwardedFor || forwardedFor.isEmpty())
+            return request.getRemoteAddr();
+
+        //The first address is the client, the proxies append theirs after it
+        int comma = forwardedFor.indexOf(',');
+        return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+    }
+
+    public LoginThrottleStats getStats() {
+
+        return new LoginThrottleStats(passwordHashingPool.getPoolSize(), passwordHashingPool.getActiveCount(),
+                passwordHashingPool.getQueueDepth(), passwordHashingPool.getQueueCapacity(),
+                rateLimited.sum(), rejected.sum(), timedOut.sum());
+    }
+
+
+    private static String keyOf(String userName) {
+        return null == userName ? "" : userName.toLowerCase(Locale.ROOT);
+    }
+
+    private static <T> T awaitStarted(Future<T> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginThrottledException("Login interrupted");
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+
+        if (cause instanceof RuntimeException)
+            return (RuntimeException) cause;
+
+        if (cause instanceof Error)
+            throw (Error) cause;
+
+        return new IllegalStateException(cause);
+    }
+}
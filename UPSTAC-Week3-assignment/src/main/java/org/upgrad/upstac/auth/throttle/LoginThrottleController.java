@@ -0,0 +1,23 @@
+package org.upgrad.upstac.auth.throttle;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/government/login-throttle")
+public class LoginThrottleController {
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public LoginThrottleStats getStats() {
+
+        return loginThrottle.getStats();
+    }
+}
@@ -0,0 +1,28 @@
+package org.upgrad.upstac.auth.throttle;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+//The shared hashing pool logins run on and the login rejections as metrics, read from the throttle when scraped
+@Component
+public class LoginThrottleMetrics implements MeterBinder {
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        Gauge.builder("login.queue.depth", loginThrottle, throttle -> throttle.getStats().getQueueDepth()).register(registry);
+        Gauge.builder("login.active.checks", loginThrottle, throttle -> throttle.getStats().getActiveChecks()).register(registry);
+
+        FunctionCounter.builder("login.rejected", loginThrottle, throttle -> throttle.getStats().getRateLimited()).tag("reason", "rate_limited").register(registry);
+        FunctionCounter.builder("login.rejected", loginThrottle, throttle -> throttle.getStats().getRejected()).tag("reason", "queue_full").register(registry);
+        FunctionCounter.builder("login.rejected", loginThrottle, throttle -> throttle.getStats().getTimedOut()).tag("reason", "timed_out").register(registry);
+    }
+}
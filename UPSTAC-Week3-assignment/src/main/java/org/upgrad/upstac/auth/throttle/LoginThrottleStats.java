@@ -0,0 +1,19 @@
+package org.upgrad.upstac.auth.throttle;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//The counts are totals since startup
+@Getter
+@AllArgsConstructor
+public class LoginThrottleStats {
+
+    private int poolSize;
+    private int activeChecks;
+    private int queueDepth;
+    private int queueCapacity;
+    private long rateLimited;
+    private long rejected;
+    private long timedOut;
+
+}
@@ -0,0 +1,9 @@
+package org.upgrad.upstac.auth.throttle;
+
+public class LoginThrottledException extends RuntimeException {
+
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+
+}
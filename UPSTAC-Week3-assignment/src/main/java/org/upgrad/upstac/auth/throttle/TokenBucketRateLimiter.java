@@ -0,0 +1,69 @@
+package org.upgrad.upstac.auth.throttle;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+//A token bucket per key, holding up to capacity tokens and gaining refillPerMinute of them every minute
+//A bucket left alone long enough to fill up again is dropped, the one created in its place starts full
+public class TokenBucketRateLimiter {
+
+    private final long capacity;
+
+    private final double tokensPerNano;
+
+    private final LongSupplier nanoTime;
+
+    private final Cache<String, Bucket> buckets;
+
+
+    public TokenBucketRateLimiter(long capacity, long refillPerMinute, long maximumKeys) {
+        this(capacity, refillPerMinute, maximumKeys, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(long capacity, long refillPerMinute, long maximumKeys, LongSupplier nanoTime) {
+
+        if (capacity <= 0 || refillPerMinute <= 0)
+            throw new IllegalArgumentException("Capacity and refill of a rate limit should be positive");
+
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.nanoTime = nanoTime;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess((long) Math.ceil(capacity / tokensPerNano), TimeUnit.NANOSECONDS)
+                .ticker(nanoTime::getAsLong)
+                .build();
+    }
+
+    public boolean tryAcquire(String key) {
+
+        long now = nanoTime.getAsLong();
+        return buckets.get(key, created -> new Bucket(now)).tryAcquire(now);
+    }
+
+    private final class Bucket {
+
+        private double tokens = capacity;
+
+        private long refilledAt;
+
+        Bucket(long now) {
+            this.refilledAt = now;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+
+            if (tokens < 1)
+                return false;
+
+            tokens -= 1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.upgrad.upstac.config.cache;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+//The cache manager itself is auto configured by spring boot from the spring.cache.* properties
+//Caffeine is picked up from the classpath, so size, ttl and stats recording are set via spring.cache.caffeine.spec
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USER_CACHE = "user";
+
+}
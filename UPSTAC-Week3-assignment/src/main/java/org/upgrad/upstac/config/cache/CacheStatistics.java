@@ -0,0 +1,28 @@
+package org.upgrad.upstac.config.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Data;
+
+@Data
+public class CacheStatistics {
+
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private double hitRate;
+
+    public static CacheStatistics from(String name, com.github.benmanes.caffeine.cache.Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+
+        CacheStatistics cacheStatistics = new CacheStatistics();
+        cacheStatistics.setName(name);
+        cacheStatistics.setSize(cache.estimatedSize());
+        cacheStatistics.setHitCount(stats.hitCount());
+        cacheStatistics.setMissCount(stats.missCount());
+        cacheStatistics.setEvictionCount(stats.evictionCount());
+        cacheStatistics.setHitRate(stats.hitRate());
+        return cacheStatistics;
+    }
+}
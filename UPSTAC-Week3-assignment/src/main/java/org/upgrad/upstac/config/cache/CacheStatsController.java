@@ -0,0 +1,46 @@
+package org.upgrad.upstac.config.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.upgrad.upstac.config.security.TokenProvider;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/government/caches")
+public class CacheStatsController {
+
+    private static final String VERIFIED_TOKENS = "verifiedTokens";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<CacheStatistics> getCacheStatistics() {
+
+        List<CacheStatistics> statistics = cacheManager.getCacheNames()
+                .stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .filter(cache -> cache instanceof CaffeineCache)
+                .map(cache -> CacheStatistics.from(cache.getName(), ((CaffeineCache) cache).getNativeCache()))
+                .collect(Collectors.toList());
+
+        //Not managed by the cache manager, its entries expire with their token
+        statistics.add(CacheStatistics.from(VERIFIED_TOKENS, tokenProvider.getVerifiedTokenCache()));
+
+        return statistics;
+    }
+}
@@ -0,0 +1,129 @@
+package org.upgrad.upstac.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+//Connection pools (Hikari) for the primary database and the optional read replica, sized by the datasource.* properties
+//Url and credentials still come from spring.datasource.*, the replica is only set up when datasource.replica.url is set
+//Spring boot binds each pool bean to the meter registry, they report hikaricp.connections.active, idle and pending per pool name
+@Configuration
+@Slf4j
+public class DataSourceConfig {
+
+    @Value("${datasource.pool.maximum-size:10}")
+    private int maximumSize;
+
+    @Value("${datasource.pool.minimum-idle:10}")
+    private int minimumIdle;
+
+    @Value("${datasource.pool.connection-timeout-ms:30000}")
+    private long connectionTimeoutMs;
+
+    @Value("${datasource.pool.idle-timeout-ms:600000}")
+    private long idleTimeoutMs;
+
+    @Value("${datasource.pool.max-lifetime-ms:1800000}")
+    private long maxLifetimeMs;
+
+    @Value("${datasource.pool.leak-detection-threshold-ms:0}")
+    private long leakDetectionThresholdMs;
+
+    @Value("${datasource.statement-cache-size:0}")
+    private int statementCacheSize;
+
+    @Value("${datasource.statement-cache-sql-limit:2048}")
+    private int statementCacheSqlLimit;
+
+    @Value("${datasource.rewrite-batched-statements:false}")
+    private boolean rewriteBatchedStatements;
+
+    @Value("${datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${datasource.replica.username:}")
+    private String replicaUsername;
+
+    @Value("${datasource.replica.password:}")
+    private String replicaPassword;
+
+    @Value("${datasource.replica.maximum-size:10}")
+    private int replicaMaximumSize;
+
+
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        configure(dataSource, "primary", maximumSize);
+
+        log.info("Primary pool of {} connections for {}", maximumSize, properties.determineUrl());
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty("datasource.replica.url")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername)
+                .password(replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword)
+                .build();
+        configure(dataSource, "replica", replicaMaximumSize);
+        dataSource.setReadOnly(true);
+
+        log.info("Replica pool of {} connections for {}", replicaMaximumSize, replicaUrl);
+        return dataSource;
+    }
+
+    //The one jpa, flyway and jdbc templates use, connections are only taken from a pool when a statement runs
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replicaDataSource) {
+
+        HikariDataSource replica = replicaDataSource.getIfAvailable();
+
+        if (null == replica)
+            return new LazyConnectionDataSourceProxy(primaryDataSource);
+
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replica));
+    }
+
+
+    private void configure(HikariDataSource dataSource, String poolName, int size) {
+
+        dataSource.setPoolName(poolName);
+        dataSource.setMaximumPoolSize(size);
+        dataSource.setMinimumIdle(Math.min(minimumIdle, size));
+        dataSource.setConnectionTimeout(connectionTimeoutMs);
+        dataSource.setIdleTimeout(idleTimeoutMs);
+        dataSource.setMaxLifetime(maxLifetimeMs);
+        dataSource.setLeakDetectionThreshold(leakDetectionThresholdMs);
+
+        //Driver properties of MySQL Connector/J, left out when off so other drivers are not handed settings they reject
+        if (statementCacheSize > 0) {
+            dataSource.addDataSourceProperty("cachePrepStmts", "true");
+            dataSource.addDataSourceProperty("useServerPrepStmts", "true");
+            dataSource.addDataSourceProperty("prepStmtCacheSize", String.valueOf(statementCacheSize));
+            dataSource.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(statementCacheSqlLimit));
+        }
+
+        if (rewriteBatchedStatements)
+            dataSource.addDataSourceProperty("rewriteBatchedStatements", "true");
+    }
+}
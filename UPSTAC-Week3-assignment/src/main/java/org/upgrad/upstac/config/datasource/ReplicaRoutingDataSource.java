@@ -0,0 +1,59 @@
+package org.upgrad.upstac.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+//Hands out replica connections to the work run through read(), every other connection comes from the primary
+//The connection is picked on its first statement (DataSourceConfig wraps this in a LazyConnectionDataSourceProxy),
+//a read joining a read-write transaction stays on the primary so it sees the rows that transaction wrote
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private static final ThreadLocal<Boolean> reading = new ThreadLocal<>();
+
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static <T> T read(Supplier<T> work) {
+
+        Boolean previous = reading.get();
+        reading.set(Boolean.TRUE);
+
+        try {
+            return work.get();
+        } finally {
+            if (null == previous)
+                reading.remove();
+            else
+                reading.set(previous);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+
+        if (null == reading.get())
+            return PRIMARY;
+
+        if (TransactionSynchronizationManager.isActualTransactionActive() && false == TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return PRIMARY;
+
+        return REPLICA;
+    }
+}
@@ -0,0 +1,46 @@
+package org.upgrad.upstac.config.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Tags the http.server.requests timings with the controller method that handled the request, as Controller.method
+//The uri tag alone mixes the methods that share a path, like the GET and PUT of a lab request
+@Component
+public class HandlerTagsContributor implements WebMvcTagsContributor {
+
+    static final String HANDLER = "handler";
+
+    static final String NO_HANDLER = "none";
+
+    private static final Map<Method, String> names = new ConcurrentHashMap<>();
+
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception) {
+        return Tags.of(HANDLER, handlerOf(handler));
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return Tags.of(HANDLER, handlerOf(handler));
+    }
+
+    //Requests rejected before reaching a controller, by security for instance, have no handler
+    static String handlerOf(Object handler) {
+
+        if (false == handler instanceof HandlerMethod)
+            return NO_HANDLER;
+
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        return names.computeIfAbsent(handlerMethod.getMethod(), method -> handlerMethod.getBeanType().getSimpleName() + "." + method.getName());
+    }
+}
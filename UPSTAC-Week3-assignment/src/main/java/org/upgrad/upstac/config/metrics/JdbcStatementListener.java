@@ -0,0 +1,34 @@
+package org.upgrad.upstac.config.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+//Registered through spring.jpa.properties.hibernate.session.events.auto, hibernate makes an instance per session
+//Adds every statement and batch the session runs to the statistics of the current request, when there is one
+//Statements run through JdbcTemplate, like the flow writer's batches, are not seen here
+public class JdbcStatementListener extends BaseSessionEventListener {
+
+    private long statementStart;
+
+    private long batchStart;
+
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestJdbcStatistics.record(System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestJdbcStatistics.record(System.nanoTime() - batchStart);
+    }
+}
@@ -0,0 +1,49 @@
+package org.upgrad.upstac.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.upgrad.upstac.config.metrics.HandlerTagsContributor.HANDLER;
+import static org.upgrad.upstac.config.metrics.HandlerTagsContributor.handlerOf;
+
+//Records how many statements a request ran and how long they took, per controller method
+//Runs ahead of the security filters, so a user loaded to authenticate the request is counted too
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestJdbcMetricsFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS = "db.statements.per.request";
+    static final String STATEMENT_TIME = "db.statement.time.per.request";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws ServletException, IOException {
+
+        RequestJdbcStatistics.begin();
+
+        try {
+            chain.doFilter(req, res);
+        } finally {
+            RequestJdbcStatistics statistics = RequestJdbcStatistics.end();
+            String handler = handlerOf(req.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+
+            meterRegistry.summary(STATEMENTS, HANDLER, handler).record(statistics.getStatements());
+            meterRegistry.timer(STATEMENT_TIME, HANDLER, handler).record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
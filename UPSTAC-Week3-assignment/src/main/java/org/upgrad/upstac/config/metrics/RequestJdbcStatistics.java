@@ -0,0 +1,63 @@
+package org.upgrad.upstac.config.metrics;
+
+import java.util.function.Supplier;
+
+//The statements run for the request on the current thread, begun and ended by RequestJdbcMetricsFilter
+//Work a request hands to another thread and waits for, like the login password check, carries them over
+public final class RequestJdbcStatistics {
+
+    private static final ThreadLocal<RequestJdbcStatistics> current = new ThreadLocal<>();
+
+    private int statements;
+
+    private long nanos;
+
+
+    private RequestJdbcStatistics() {
+    }
+
+    static void begin() {
+        current.set(new RequestJdbcStatistics());
+    }
+
+    static RequestJdbcStatistics end() {
+        RequestJdbcStatistics statistics = current.get();
+        current.remove();
+        return statistics;
+    }
+
+    static void record(long nanos) {
+
+        RequestJdbcStatistics statistics = current.get();
+
+        if (null != statistics) {
+            statistics.statements++;
+            statistics.nanos += nanos;
+        }
+    }
+
+    public static <T> Supplier<T> carriedOver(Supplier<T> work) {
+
+        RequestJdbcStatistics statistics = current.get();
+
+        if (null == statistics)
+            return work;
+
+        return () -> {
+            current.set(statistics);
+            try {
+                return work.get();
+            } finally {
+                current.remove();
+            }
+        };
+    }
+
+    int getStatements() {
+        return statements;
+    }
+
+    long getNanos() {
+        return nanos;
+    }
+}
@@ -1,14 +1,21 @@
 package org.upgrad.upstac.config.security;
 
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.upgrad.upstac.shared.logging.LogCategory;
+import org.upgrad.upstac.shared.logging.LogSampler;
+import org.upgrad.upstac.shared.logging.RequestIdFilter;
+import org.upgrad.upstac.users.UserService;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -31,21 +38,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private TokenProvider tokenProvider;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LogSampler logSampler;
+
+    //Authenticates from the token claims and the cached user, tokens issued before they carried the user id load the user details
+    @Value("${security.token.stateless:true}")
+    private boolean stateless;
+
     @Override
     protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
         String header = req.getHeader(HEADER_STRING);
 
         String username = null;
-        String authToken = null;
+        Claims claims = null;
 
+        //The token is parsed and verified once, everything below works on its claims
         if (isTokenAttributeSetIn(header)) {
-            authToken = getAuthTokenFromHeader(header);
-            username = getUserNameFromToken(authToken);
+            claims = tokenProvider.getVerifiedClaims(getAuthTokenFromHeader(header));
+            username = claims.getSubject();
         }
 
         if (isSecurityContextAuthenticationNotPresent(username)){
-            log.info("security context se");
-            setSecurityContextAuthenticationIn(req, username, authToken);
+            setSecurityContextAuthenticationIn(req, username, claims);
         }
 
 
@@ -56,25 +73,54 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return header.replace(TOKEN_PREFIX, "");
     }
 
-    String getUserNameFromToken(String authToken) throws ServletException {
+    private boolean isTokenAttributeSetIn(String header) {
+        return header != null && header.startsWith(TOKEN_PREFIX);
+    }
+
+    void setSecurityContextAuthenticationIn(HttpServletRequest req, String username, Claims claims) throws ServletException {
+
+        UsernamePasswordAuthenticationToken authentication = isStatelessFor(claims)
+                ? getAuthenticationFromClaims(claims)
+                : getAuthenticationFromUser(username, claims);
+
+        if (null == authentication) {
+            log.info("revoked token userName={}", username);
+            return;
+        }
+
+        Long userId = tokenProvider.getUserId(claims);
+        if (null != userId)
+            MDC.put(RequestIdFilter.USER_ID, userId.toString());
 
-        return tokenProvider.getUsernameFromToken(authToken);
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
+        if (log.isInfoEnabled() && logSampler.sample(LogCategory.TOKEN))
+            log.info("authenticated userName={}", username);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
 
     }
 
-    private boolean isTokenAttributeSetIn(String header) {
-        return header != null && header.startsWith(TOKEN_PREFIX);
+    boolean isStatelessFor(Claims claims) {
+        return stateless && null != tokenProvider.getUserId(claims);
+    }
+
+    UsernamePasswordAuthenticationToken getAuthenticationFromClaims(Claims claims) {
+
+        //The user cache is evicted when the status or password changes, so the version read here is the stored one
+        if (false == tokenProvider.isCurrentFor(claims, userService.findByUserName(claims.getSubject())))
+            return null;
+
+        return tokenProvider.getAuthentication(claims);
     }
 
-    void setSecurityContextAuthenticationIn(HttpServletRequest req, String username, String authToken) throws ServletException {
+    UsernamePasswordAuthenticationToken getAuthenticationFromUser(String username, Claims claims) throws ServletException {
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-        tokenProvider.validateToken(authToken, userDetails);
-        UsernamePasswordAuthenticationToken authentication = tokenProvider.getAuthentication(authToken, SecurityContextHolder.getContext().getAuthentication(), userDetails);
-        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
-        logger.info("authenticated user " + username + ", setting security context");
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+        tokenProvider.validateToken(claims, userDetails);
+
+        if (userDetails instanceof UpgradUserDetails && false == tokenProvider.isCurrentFor(claims, ((UpgradUserDetails) userDetails).getUser()))
+            return null;
 
+        return tokenProvider.getAuthentication(claims, SecurityContextHolder.getContext().getAuthentication(), userDetails);
     }
 
     boolean isSecurityContextAuthenticationNotPresent(String username) {
@@ -1,5 +1,8 @@
 package org.upgrad.upstac.config.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,12 +13,23 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.AccountStatus;
 
 import javax.servlet.ServletException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -30,6 +44,21 @@ public class TokenProvider implements Serializable {
 
 
     static final String AUTHORITIES_KEY = "scopes";
+    static final String USER_ID_KEY = "uid";
+    static final String TOKEN_VERSION_KEY = "ver";
+
+    public static final long VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+
+    //Claims of tokens whose signature has already been verified, keyed by the hash of the token
+    //Every entry expires together with its token, so a cached token can never outlive its exp
+    private final transient Cache<String, Claims> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+            .expireAfter(new ExpireWithToken())
+            .recordStats()
+            .build();
+
+    //Authorities parsed once per distinct scopes claim, only signed tokens get here so there is one per role combination
+    private final transient Map<String, List<GrantedAuthority>> authoritiesByScope = new ConcurrentHashMap<>();
 
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
@@ -40,10 +69,19 @@ public class TokenProvider implements Serializable {
     }
 
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
+        final Claims claims = getVerifiedClaims(token);
         return claimsResolver.apply(claims);
     }
 
+    //Parses and verifies the token only the first time it is seen, invalid tokens throw and are never cached
+    public Claims getVerifiedClaims(String token) {
+        return verifiedTokens.get(hashOf(token), key -> getAllClaimsFromToken(token));
+    }
+
+    public Cache<String, Claims> getVerifiedTokenCache() {
+        return verifiedTokens;
+    }
+
     private Claims getAllClaimsFromToken(String token) {
         return Jwts.parser()
                 .setSigningKey(secretKey)
@@ -51,55 +89,120 @@ public class TokenProvider implements Serializable {
                 .getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
+    private static String hashOf(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Boolean isTokenExpired(Claims claims) {
+        final Date expiration = claims.getExpiration();
         return expiration.before(new Date());
     }
 
     public String generateToken(Authentication authentication) {
+        return tokenBuilderFor(authentication).compact();
+    }
+
+    //Also carries the user id and token version, checked against the cached user on every request
+    public String generateToken(Authentication authentication, User user) {
+        return tokenBuilderFor(authentication)
+                .claim(USER_ID_KEY, user.getId())
+                .claim(TOKEN_VERSION_KEY, user.getTokenVersion())
+                .compact();
+    }
+
+    private JwtBuilder tokenBuilderFor(Authentication authentication) {
         final String authorities = authentication.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
-        log.info("authorities",authorities);
+        log.debug("authorities={}", authorities);
         return Jwts.builder()
                 .setSubject(authentication.getName())
                 .claim(AUTHORITIES_KEY, authorities)
                 .signWith(SignatureAlgorithm.HS256, secretKey)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY*1000))
-                .compact();
+                .setExpiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY*1000));
+    }
+
+    public Long getUserId(Claims claims) {
+        return claims.get(USER_ID_KEY, Long.class);
+    }
+
+    //Tokens issued before they carried a version count as version 0, the version every user starts at
+    public int getTokenVersion(Claims claims) {
+        Integer version = claims.get(TOKEN_VERSION_KEY, Integer.class);
+        return null == version ? 0 : version;
+    }
+
+    //The token is only good while the user is approved and nothing revoked it since it was issued
+    public boolean isCurrentFor(Claims claims, User user) {
+        return null != user
+                && user.getStatus() == AccountStatus.APPROVED
+                && (null == getUserId(claims) || user.getId().equals(getUserId(claims)))
+                && user.getTokenVersion() == getTokenVersion(claims);
     }
 
-    public void validateToken(String token, UserDetails userDetails) throws ServletException {
-        final String username = getUsernameFromToken(token);
+    public void validateToken(Claims claims, UserDetails userDetails) throws ServletException {
+        final String username = claims.getSubject();
         if (username.equals(userDetails.getUsername()) == false)
             throw new ServletException("Invalid User Name");
 
-        if (!isTokenExpired(token) == false)
+        if (!isTokenExpired(claims) == false)
             throw new ServletException("Token Expired");
 
     }
 
-    UsernamePasswordAuthenticationToken getAuthentication(final String token, final Authentication existingAuth, final UserDetails userDetails) {
+    UsernamePasswordAuthenticationToken getAuthentication(final Claims claims, final Authentication existingAuth, final UserDetails userDetails) {
 
-        final JwtParser jwtParser = Jwts.parser().setSigningKey(secretKey);
+        return new UsernamePasswordAuthenticationToken(userDetails, "", getAuthorities(claims));
+    }
 
-        final Jws<Claims> claimsJws = jwtParser.parseClaimsJws(token);
+    //The principal is built from the verified claims only, the user is not loaded
+    UsernamePasswordAuthenticationToken getAuthentication(final Claims claims) {
 
-        final Claims claims = claimsJws.getBody();
+        final Collection<? extends GrantedAuthority> authorities = getAuthorities(claims);
+        final UserDetails userDetails = new org.springframework.security.core.userdetails.User(claims.getSubject(), "", authorities);
 
+        return new UsernamePasswordAuthenticationToken(userDetails, "", authorities);
+    }
 
+    private Collection<? extends GrantedAuthority> getAuthorities(Claims claims) {
 
-        log.info("claims" + claims.get(AUTHORITIES_KEY).toString());
-        final Collection<? extends GrantedAuthority> authorities =
-                Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
+        String scopes = claims.get(AUTHORITIES_KEY).toString();
+        log.debug("scopes={}", scopes);
+        return authoritiesByScope.computeIfAbsent(scopes, key ->
+                Collections.unmodifiableList(Arrays.stream(key.split(","))
                         .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
-
-        return new UsernamePasswordAuthenticationToken(userDetails, "", authorities);
+                        .collect(Collectors.toList())));
     }
 
     private static final Logger log = LoggerFactory.getLogger(TokenProvider.class);
 
+
+    private static class ExpireWithToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long millisLeft = null == claims.getExpiration()
+                    ? JWT_TOKEN_VALIDITY * 1000
+                    : claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
 }
@@ -0,0 +1,29 @@
+package org.upgrad.upstac.config.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import java.util.Collection;
+
+//Carries the loaded user, so a login does not look it up again once the password is checked
+//The account flags come from the status, spring security checks them before the password and rejects a
+//pending account as disabled, a rejected one as locked and a deleted one as expired, without hashing
+public class UpgradUserDetails extends org.springframework.security.core.userdetails.User {
+
+    private final transient User user;
+
+    public UpgradUserDetails(User user, Collection<? extends GrantedAuthority> authorities) {
+        super(user.getUserName(), user.getPassword(),
+                AccountStatus.APPROVED == user.getStatus(),
+                AccountStatus.DELETED != user.getStatus(),
+                true,
+                AccountStatus.REJECTED != user.getStatus(),
+                authorities);
+        this.user = user;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
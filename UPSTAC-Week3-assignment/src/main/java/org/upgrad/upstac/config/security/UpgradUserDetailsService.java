@@ -9,10 +9,17 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.shared.logging.LogCategory;
+import org.upgrad.upstac.shared.logging.LogSampler;
 import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.roles.UserRole;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 @Service(value = "UpgradUserDetailsService")
@@ -21,32 +28,40 @@ public class UpgradUserDetailsService implements UserDetailsService {
 
 	private UserService userService;
 
+	private LogSampler logSampler;
 
 
 	private static final Logger log = LoggerFactory.getLogger(UpgradUserDetailsService.class);
 
 	@Autowired
-	public UpgradUserDetailsService(UserService userService) {
+	public UpgradUserDetailsService(UserService userService, LogSampler logSampler) {
 		this.userService = userService;
+		this.logSampler = logSampler;
 	}
 
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		User user = userService.findByUserName(username);
-		log.info("loadUserByUsername " + user.toString());
 		if(user == null){
 			throw new UsernameNotFoundException("Invalid username or password.");
 		}
-		return new org.springframework.security.core.userdetails.User(user.getUserName(), user.getPassword(), getAuthority(user));
+		if (log.isInfoEnabled() && logSampler.sample(LogCategory.AUTH))
+			log.info("loadUserByUsername userId={} status={}", user.getId(), user.getStatus());
+		return new UpgradUserDetails(user, getAuthority(user));
 	}
 
 	private Set<SimpleGrantedAuthority> getAuthority(User user) {
 
-		return user.getRoles()
-				.stream()
-				.map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
-				.collect(Collectors.toSet());
+		return AUTHORITIES_BY_ROLE_MASK.get(user.roleMask());
 
 	}
 
+	//The authorities of every combination of roles, indexed by the role mask of the user
+	private static final List<Set<SimpleGrantedAuthority>> AUTHORITIES_BY_ROLE_MASK = IntStream.range(0, 1 << UserRole.values().length)
+			.mapToObj(mask -> Collections.unmodifiableSet(Arrays.stream(UserRole.values())
+					.filter(role -> (mask & role.bit()) != 0)
+					.map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
+					.collect(Collectors.toSet())))
+			.collect(Collectors.toList());
+
 }
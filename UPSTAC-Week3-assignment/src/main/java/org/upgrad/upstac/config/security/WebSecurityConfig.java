@@ -1,7 +1,9 @@
 package org.upgrad.upstac.config.security;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,14 +14,17 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.firewall.HttpFirewall;
 import org.springframework.security.web.firewall.StrictHttpFirewall;
+import org.upgrad.upstac.users.credentials.AdaptivePasswordEncoder;
+import org.upgrad.upstac.users.credentials.HashAlgorithm;
 
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
+@Slf4j
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
 
@@ -30,6 +35,16 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private UnAuthorizedHandler unauthorizedHandler;
 
+    @Value("${security.password-hashing.algorithm:bcrypt}")
+    private String hashAlgorithm;
+
+    //0 calibrates the cost at startup, so a password check takes about the target time on this machine
+    @Value("${security.password-hashing.cost:0}")
+    private int hashCost;
+
+    @Value("${security.password-hashing.target-ms:100}")
+    private long hashTargetMillis;
+
     @Override
     @Bean
     public AuthenticationManager authenticationManagerBean() throws Exception {
@@ -80,7 +95,9 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                         "/swagger-resources/**",
                         "/configuration/security",
                         "/swagger-ui.html",
-                        "/webjars/**").permitAll()
+                        "/webjars/**",
+                        "/actuator/health",
+                        "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated()
                 .and()
                 .exceptionHandling().authenticationEntryPoint(unauthorizedHandler).and()
@@ -91,8 +108,15 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     }
 
     @Bean
-    public BCryptPasswordEncoder encoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder encoder(){
+
+        HashAlgorithm algorithm = HashAlgorithm.fromId(hashAlgorithm)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown password hashing algorithm " + hashAlgorithm));
+
+        int cost = hashCost > 0 ? algorithm.checkCost(hashCost) : algorithm.calibrate(hashTargetMillis);
+        log.info("Hashing passwords with {} at cost {}", algorithm.getId(), cost);
+
+        return new AdaptivePasswordEncoder(algorithm, cost);
     }
 
 }
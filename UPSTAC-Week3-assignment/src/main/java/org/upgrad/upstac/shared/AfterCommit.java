@@ -0,0 +1,25 @@
+package org.upgrad.upstac.shared;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Runs an action once the current transaction commits, or right away when there is no transaction
+//Side effects outside the database then never see a change that is rolled back
+public class AfterCommit {
+
+    public static void run(Runnable action) {
+
+        if (false == TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
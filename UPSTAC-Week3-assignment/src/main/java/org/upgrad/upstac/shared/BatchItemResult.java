@@ -0,0 +1,24 @@
+package org.upgrad.upstac.shared;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Outcome of a single item of a bulk request, bulk endpoints return one per item in the order they were sent
+@Getter
+@AllArgsConstructor
+public class BatchItemResult {
+
+    private Long id;
+    private boolean success;
+    private String message;
+
+
+    public static BatchItemResult succeeded(Long id) {
+        return new BatchItemResult(id, true, null);
+    }
+
+    public static BatchItemResult failed(Long id, String message) {
+        return new BatchItemResult(id, false, message);
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.upgrad.upstac.shared;
+
+import org.upgrad.upstac.exception.AppException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Minimal RFC 4180 reader, the first line holds the column names
+//Quoted values may contain commas and doubled quotes, but not line breaks
+public class CsvParser {
+
+    public static List<Map<String, String>> parse(String csv) {
+
+        String[] lines = csv.split("\\r?\\n");
+
+        if (lines.length == 0 || lines[0].trim().isEmpty())
+            throw new AppException("CSV header is missing");
+
+        List<String> header = splitLine(lines[0]);
+        List<Map<String, String>> rows = new ArrayList<>();
+
+        for (int i = 1; i < lines.length; i++) {
+
+            if (lines[i].trim().isEmpty())
+                continue;
+
+            List<String> values = splitLine(lines[i]);
+            Map<String, String> row = new HashMap<>();
+
+            for (int column = 0; column < header.size(); column++)
+                row.put(header.get(column), column < values.size() ? values.get(column) : null);
+
+            rows.add(row);
+        }
+
+        return rows;
+    }
+
+    static List<String> splitLine(String line) {
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(valueOf(value));
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(valueOf(value));
+
+        return values;
+    }
+
+    private static String valueOf(StringBuilder value) {
+        String trimmed = value.toString().trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+}
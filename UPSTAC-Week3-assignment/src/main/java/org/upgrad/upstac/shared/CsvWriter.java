@@ -0,0 +1,46 @@
+package org.upgrad.upstac.shared;
+
+//Writes RFC 4180 lines that CsvParser reads back, null values are written as empty fields
+//Values holding a comma, a quote or a line break are quoted, with their quotes doubled
+//Text starting like a spreadsheet formula is prefixed with a quote, so it is shown as text instead of evaluated
+public class CsvWriter {
+
+    private static final String FORMULA_START = "=+-@\t\r";
+
+    public static String line(Object... values) {
+
+        StringBuilder line = new StringBuilder();
+
+        for (int i = 0; i < values.length; i++) {
+
+            if (i > 0)
+                line.append(',');
+
+            if (values[i] instanceof CharSequence)
+                appendValue(line, asText(values[i].toString()));
+            else if (null != values[i])
+                appendValue(line, values[i].toString());
+        }
+
+        return line.append("\r\n").toString();
+    }
+
+    private static String asText(String value) {
+
+        if (value.isEmpty() || FORMULA_START.indexOf(value.charAt(0)) < 0)
+            return value;
+
+        return "'" + value;
+    }
+
+    private static void appendValue(StringBuilder line, String value) {
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.upgrad.upstac.shared;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+//A page of a keyset (cursor) based listing, the next page is requested with nextCursor
+//nextCursor is null once the last page has been reached
+@Getter
+public class CursorPage<T> {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private final List<T> items;
+
+    private final Long nextCursor;
+
+
+    public CursorPage(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> CursorPage<T> of(List<T> items, int limit, Function<T, Long> idOf) {
+
+        if (items.size() < limit || items.isEmpty())
+            return new CursorPage<>(items, null);
+
+        return new CursorPage<>(items, idOf.apply(items.get(items.size() - 1)));
+    }
+
+    public static long startOf(Long cursor) {
+        return null == cursor ? 0L : cursor;
+    }
+
+    public static int limitOf(Integer limit) {
+
+        if (null == limit || limit <= 0)
+            return DEFAULT_LIMIT;
+
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    public static Pageable firstPageOf(int limit) {
+        return PageRequest.of(0, limit);
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.upgrad.upstac.shared;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.util.function.Function;
+
+//Writes a keyset paged listing as newline delimited json, one page at a time
+//Only a single page is held in memory, whatever the size of the table
+@Component
+public class NdjsonStreamer {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final byte[] NEW_LINE = "\n".getBytes();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(Long cursor, Function<Long, CursorPage<T>> pageLoader) {
+
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        StreamingResponseBody body = outputStream -> {
+
+            OutputStream out = new BufferedOutputStream(outputStream);
+            Long next = CursorPage.startOf(cursor);
+
+            while (null != next) {
+                CursorPage<T> page = pageLoader.apply(next);
+
+                for (T item : page.getItems()) {
+                    writer.writeValue(out, item);
+                    out.write(NEW_LINE);
+                }
+                out.flush();
+                next = page.getNextCursor();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+}
@@ -0,0 +1,6 @@
+package org.upgrad.upstac.shared.logging;
+
+//The busy paths whose info lines are sampled, each with its own rate logging.sampling.<category>
+public enum LogCategory {
+    AUTH, TOKEN, USERS, TRANSITIONS
+}
@@ -0,0 +1,43 @@
+package org.upgrad.upstac.shared.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Keeps a fraction of the info lines of a busy path, so its log volume can be tuned without a code change
+//A rate of 1 keeps every line and 0 drops them all, warnings and errors are not sampled
+//Callers check the level first, so a disabled level costs neither the draw nor the message
+@Component
+public class LogSampler {
+
+    @Value("${logging.sampling.auth:1.0}")
+    private double auth;
+
+    @Value("${logging.sampling.token:1.0}")
+    private double token;
+
+    @Value("${logging.sampling.users:1.0}")
+    private double users;
+
+    @Value("${logging.sampling.transitions:1.0}")
+    private double transitions;
+
+    private final double[] rates = new double[LogCategory.values().length];
+
+
+    @PostConstruct
+    public void start() {
+        rates[LogCategory.AUTH.ordinal()] = auth;
+        rates[LogCategory.TOKEN.ordinal()] = token;
+        rates[LogCategory.USERS.ordinal()] = users;
+        rates[LogCategory.TRANSITIONS.ordinal()] = transitions;
+    }
+
+    public boolean sample(LogCategory category) {
+
+        double rate = rates[category.ordinal()];
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
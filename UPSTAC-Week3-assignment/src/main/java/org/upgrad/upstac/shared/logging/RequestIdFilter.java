@@ -0,0 +1,55 @@
+package org.upgrad.upstac.shared.logging;
+
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+//Puts the request id in the logging context of the request, every line logged for it then carries requestId=
+//The id sent by a proxy in X-Request-Id is kept when it looks like one, otherwise a new one is made
+//The user id is added by JwtAuthenticationFilter once the token is read, both are cleared when the request ends
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID = "requestId";
+    public static final String USER_ID = "userId";
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws ServletException, IOException {
+
+        String requestId = requestIdOf(req.getHeader(REQUEST_ID_HEADER));
+
+        MDC.put(REQUEST_ID, requestId);
+        res.setHeader(REQUEST_ID_HEADER, requestId);
+
+        try {
+            chain.doFilter(req, res);
+        } finally {
+            MDC.remove(REQUEST_ID);
+            MDC.remove(USER_ID);
+        }
+    }
+
+    static String requestIdOf(String header) {
+
+        if (null != header && VALID_REQUEST_ID.matcher(header).matches())
+            return header;
+
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+}
@@ -1,13 +1,16 @@
 package org.upgrad.upstac.testrequests;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
 import org.upgrad.upstac.testrequests.consultation.Consultation;
 import org.upgrad.upstac.testrequests.lab.LabResult;
 import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.models.Gender;
 
 import javax.persistence.*;
-import java.time.LocalDate;
+import java.time.Instant;
 
 @Data
 @Entity
@@ -21,7 +24,7 @@ public class TestRequest {
     @ManyToOne
     private User createdBy;
 
-    private LocalDate created=LocalDate.now();
+    private Instant created=Instant.now();
 
     private RequestStatus status = RequestStatus.INITIATED;
 
@@ -34,10 +37,41 @@ public class TestRequest {
     private String phoneNumber;
     private Integer pinCode;
 
+    //Copies of email and phoneNumber that are only set while the request is not completed
+    //Their unique keys allow a single request in progress per email and per phone number
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String activeEmail;
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String activePhoneNumber;
+
     @OneToOne(mappedBy="request")
     Consultation consultation;
 
     @OneToOne(mappedBy="request")
     LabResult labResult;
 
+
+    @PrePersist
+    void setActiveKeys() {
+
+        boolean inProgress = status != RequestStatus.COMPLETED;
+
+        activeEmail = inProgress ? email : null;
+        activePhoneNumber = inProgress ? phoneNumber : null;
+    }
+
+    //Keys are only ever cleared after the insert, never set, requests left in progress next to a newer one
+    //before V3 have no keys and must not take them from that newer request when they move on
+    @PreUpdate
+    void clearActiveKeys() {
+
+        if (RequestStatus.COMPLETED == status) {
+            activeEmail = null;
+            activePhoneNumber = null;
+        }
+    }
+
 }
@@ -5,14 +5,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.shared.NdjsonStreamer;
 import org.upgrad.upstac.users.User;
 
-import java.util.List;
 import java.util.Optional;
 
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
@@ -33,6 +36,9 @@ public class TestRequestController {
     @Autowired
     private TestRequestQueryService testRequestQueryService;
 
+    @Autowired
+    private NdjsonStreamer ndjsonStreamer;
+
 
     @PostMapping("/api/testrequests")
     public TestRequest createRequest(@RequestBody CreateTestRequest testRequest) {
@@ -47,19 +53,26 @@ public class TestRequestController {
     }
 
     @GetMapping("/api/testrequests")
-    public List<TestRequest> requestHistory() {
+    public CursorPage<TestRequestDetail> requestHistory(@RequestParam(required = false) Long cursor, @RequestParam(required = false) Integer limit) {
 
         User user = userLoggedInService.getLoggedInUser();
-        return testRequestService.getHistoryFor(user);
+        return testRequestService.getHistoryFor(user, cursor, limit);
+
 
+    }
+
+    @GetMapping(value = "/api/testrequests", produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamRequestHistory(@RequestParam(required = false) Long cursor) {
 
+        User user = userLoggedInService.getLoggedInUser();
+        return ndjsonStreamer.stream(cursor, next -> testRequestService.getHistoryFor(user, next, CursorPage.MAX_LIMIT));
     }
 
     @GetMapping("/api/testrequests/{id}")
-    public Optional<TestRequest> getById(@PathVariable Long id) {
+    public Optional<TestRequestDetail> getById(@PathVariable Long id) {
 
 
-        return testRequestQueryService.getTestRequestById(id);
+        return testRequestQueryService.getTestRequestDetailById(id);
 
 
     }
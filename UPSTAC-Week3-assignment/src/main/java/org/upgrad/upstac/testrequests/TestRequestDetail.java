@@ -0,0 +1,84 @@
+package org.upgrad.upstac.testrequests;
+
+import lombok.Getter;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.consultation.ConsultationDetail;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultDetail;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.time.Instant;
+
+//Read only view of a request with its lab result and consultation, the tester and doctor are reduced to their user names
+//The flat constructor matches the select clause in TestRequestRepository.DETAIL_SELECT
+@Getter
+public class TestRequestDetail {
+
+    private Long requestId;
+    private String name;
+    private Gender gender;
+    private Integer age;
+    private String address;
+    private Integer pinCode;
+    private String email;
+    private String phoneNumber;
+    private RequestStatus status;
+    private Instant created;
+
+    private LabResultDetail labResult;
+
+    private ConsultationDetail consultation;
+
+
+    public TestRequestDetail(Long requestId, String name, Gender gender, Integer age, String address, Integer pinCode,
+                             String email, String phoneNumber, RequestStatus status, Instant created,
+                             Long resultId, String bloodPressure, String heartBeat, String temperature, String oxygenLevel,
+                             String labComments, TestStatus result, Instant labUpdatedOn, String tester,
+                             Long consultationId, DoctorSuggestion suggestion, String consultationComments,
+                             Instant consultationUpdatedOn, String doctor) {
+        this.requestId = requestId;
+        this.name = name;
+        this.gender = gender;
+        this.age = age;
+        this.address = address;
+        this.pinCode = pinCode;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.status = status;
+        this.created = created;
+
+        if (null != resultId)
+            this.labResult = new LabResultDetail(bloodPressure, heartBeat, temperature, oxygenLevel, labComments, result, labUpdatedOn, tester);
+
+        if (null != consultationId)
+            this.consultation = new ConsultationDetail(suggestion, consultationComments, consultationUpdatedOn, doctor);
+    }
+
+    //Built from a request already loaded and changed in this transaction, so it goes out without a second query
+    public static TestRequestDetail of(TestRequest testRequest) {
+
+        LabResult labResult = testRequest.getLabResult();
+        Consultation consultation = testRequest.getConsultation();
+
+        return new TestRequestDetail(testRequest.getRequestId(), testRequest.getName(), testRequest.getGender(), testRequest.getAge(),
+                testRequest.getAddress(), testRequest.getPinCode(), testRequest.getEmail(), testRequest.getPhoneNumber(),
+                testRequest.getStatus(), testRequest.getCreated(),
+                null == labResult ? null : labResult.getResultId(),
+                null == labResult ? null : labResult.getBloodPressure(),
+                null == labResult ? null : labResult.getHeartBeat(),
+                null == labResult ? null : labResult.getTemperature(),
+                null == labResult ? null : labResult.getOxygenLevel(),
+                null == labResult ? null : labResult.getComments(),
+                null == labResult ? null : labResult.getResult(),
+                null == labResult ? null : labResult.getUpdatedOn(),
+                null == labResult || null == labResult.getTester() ? null : labResult.getTester().getUserName(),
+                null == consultation ? null : consultation.getId(),
+                null == consultation ? null : consultation.getSuggestion(),
+                null == consultation ? null : consultation.getComments(),
+                null == consultation ? null : consultation.getUpdatedOn(),
+                null == consultation || null == consultation.getDoctor() ? null : consultation.getDoctor().getUserName());
+    }
+
+}
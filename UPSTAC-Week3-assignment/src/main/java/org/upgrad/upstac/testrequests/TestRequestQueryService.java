@@ -6,16 +6,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.exception.AppException;
-import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.shared.CursorPage;
 import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
-import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.export.TestRequestExportFilter;
 import org.upgrad.upstac.testrequests.lab.LabResultRepository;
 import org.upgrad.upstac.users.User;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+import static org.upgrad.upstac.config.datasource.ReplicaRoutingDataSource.read;
+import static org.upgrad.upstac.shared.CursorPage.firstPageOf;
+import static org.upgrad.upstac.shared.CursorPage.limitOf;
+import static org.upgrad.upstac.shared.CursorPage.startOf;
+
+//Reads go to the read replica when one is configured, see ReplicaRoutingDataSource
 @Service
 @Validated
 public class TestRequestQueryService {
@@ -36,46 +41,63 @@ public class TestRequestQueryService {
 
     public List<TestRequest> findAll() {
 
-        return testRequestRepository.findAll();
+        return read(() -> testRequestRepository.findAll());
     }
 
 
     public Optional<TestRequest> getTestRequestById(Long id) {
 
-        return testRequestRepository.findById(id);
+        return read(() -> testRequestRepository.findById(id));
     }
 
+    public Optional<TestRequestDetail> getTestRequestDetailById(Long id) {
 
+        return read(() -> testRequestRepository.findDetailByRequestId(id));
+    }
 
 
-    public List<TestRequest> findBy(RequestStatus requestStatus) {
-        return testRequestRepository.findByStatus(requestStatus);
+    public CursorPage<TestRequestSummary> findBy(RequestStatus requestStatus, Long cursor, Integer limit) {
+        int pageSize = limitOf(limit);
+        List<TestRequestSummary> testRequests = read(() -> testRequestRepository.findSummariesByStatus(requestStatus, startOf(cursor), firstPageOf(pageSize)));
+        return CursorPage.of(testRequests, pageSize, TestRequestSummary::getRequestId);
 
     }
 
+    public CursorPage<TestRequestDetail> findDetailsBy(RequestStatus requestStatus, Long cursor, Integer limit) {
+        int pageSize = limitOf(limit);
+        List<TestRequestDetail> testRequests = read(() -> testRequestRepository.findDetailsByStatus(requestStatus, startOf(cursor), firstPageOf(pageSize)));
+        return CursorPage.of(testRequests, pageSize, TestRequestDetail::getRequestId);
+
+    }
 
 
-    public List<TestRequest> findByTester(User user) {
 
-        return  labResultRepository.findByTester(user)
-                .stream()
-                .map(LabResult::getRequest)
-                .collect(Collectors.toList());
+    public CursorPage<TestRequestDetail> findByTester(User user, Long cursor, Integer limit) {
+        int pageSize = limitOf(limit);
+        List<TestRequestDetail> testRequests = read(() -> testRequestRepository.findDetailsByTester(user, startOf(cursor), firstPageOf(pageSize)));
+        return CursorPage.of(testRequests, pageSize, TestRequestDetail::getRequestId);
 
     }
 
-    public List<TestRequest> findByDoctor(User user) {
-        return  consultationRepository.findByDoctor(user)
-                .stream()
-                .map(Consultation::getRequest)
-                .collect(Collectors.toList());
+    public CursorPage<TestRequestDetail> findByDoctor(User user, Long cursor, Integer limit) {
+        int pageSize = limitOf(limit);
+        List<TestRequestDetail> testRequests = read(() -> testRequestRepository.findDetailsByDoctor(user, startOf(cursor), firstPageOf(pageSize)));
+        return CursorPage.of(testRequests, pageSize, TestRequestDetail::getRequestId);
+    }
+
+
+    //Pages of the largest size, an export keeps reading until the last page
+    public CursorPage<TestRequestDetail> findForExport(TestRequestExportFilter filter, Long cursor) {
+        List<TestRequestDetail> testRequests = read(() -> testRequestRepository.findDetailsForExport(filter.getStatus(), filter.getPinCode(),
+                filter.getCreatedFrom(), filter.getCreatedTo(), startOf(cursor), firstPageOf(CursorPage.MAX_LIMIT)));
+        return CursorPage.of(testRequests, CursorPage.MAX_LIMIT, TestRequestDetail::getRequestId);
     }
 
 
     public Optional<TestRequest> findTestRequestForUserByID(User user,Long id) {
 
 
-        logger.info("findTestRequestForUserByID" + user.getRoles().toString());
+        logger.debug("findTestRequestForUserByID user {} request {}", user.getId(), id);
 
         if(user.doesRoleIsUser())
             return  findByUserAndID(user,id);
@@ -84,7 +106,7 @@ public class TestRequestQueryService {
         else if(user.doesRoleIsDoctor())
             return findByDoctorAndID(user,id);
         else if(user.doesRoleIsAuthority())
-            return testRequestRepository.findByRequestId(id);
+            return read(() -> testRequestRepository.findByRequestId(id));
         else
             throw new AppException("Invalid Role");
 
@@ -95,8 +117,8 @@ public class TestRequestQueryService {
     public Optional<TestRequest> findByDoctorAndID(User doctor,Long id) {
 
 
-        return  testRequestRepository.findByRequestId(id)
-                .filter(testRequest -> consultationRepository.findByDoctorAndRequest(doctor,testRequest).isPresent());
+        return  read(() -> testRequestRepository.findByRequestId(id)
+                .filter(testRequest -> consultationRepository.findByDoctorAndRequest(doctor,testRequest).isPresent()));
 
     }
     public Optional<TestRequest> findByTesterAndID(User tester,Long id) {
@@ -104,8 +126,8 @@ public class TestRequestQueryService {
 
 
 
-        return  testRequestRepository.findByRequestId(id)
-                .filter(testRequest -> labResultRepository.findByTesterAndRequest(tester,testRequest).isPresent());
+        return  read(() -> testRequestRepository.findByRequestId(id)
+                .filter(testRequest -> labResultRepository.findByTesterAndRequest(tester,testRequest).isPresent()));
 
 
 
@@ -117,12 +139,12 @@ public class TestRequestQueryService {
 
     public Optional<TestRequest> findByUserAndID(User user,Long id) {
 
-        return  testRequestRepository.findByCreatedByAndRequestId(user,id);
+        return  read(() -> testRequestRepository.findByCreatedByAndRequestId(user,id));
 
     }
 
     public List<TestRequest> findByUser(User user) {
-        return  testRequestRepository.findByCreatedBy(user);
+        return  read(() -> testRequestRepository.findByCreatedBy(user));
 
 
     }
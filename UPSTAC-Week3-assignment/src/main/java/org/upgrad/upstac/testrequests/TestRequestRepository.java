@@ -1,8 +1,21 @@
 package org.upgrad.upstac.testrequests;
 
+import org.hibernate.LockOptions;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.upgrad.upstac.testrequests.dashboard.GroupCount;
 import org.upgrad.upstac.users.User;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +28,48 @@ public interface TestRequestRepository extends JpaRepository<TestRequest,Long> {
 	List<TestRequest> findByCreatedBy(User user);
 
 	Optional<TestRequest> findByRequestIdAndStatus(Long id,RequestStatus status);
+	//Rows are locked in request id order, so two batches sharing ids wait on each other instead of deadlocking
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	List<TestRequest> findForUpdateByRequestIdInAndStatusOrderByRequestId(Collection<Long> ids,RequestStatus status);
+
+	//Compare and set of the status, returns 0 when the request is not in the expected state any more
+	@Modifying
+	@Query("update TestRequest t set t.status = :to where t.requestId = :id and t.status = :from")
+	int compareAndSetStatus(@Param("id") Long id, @Param("from") RequestStatus from, @Param("to") RequestStatus to);
+
+	//Bulk updates skip the entity callbacks, so completing a request releases its active email and phone number here
+	@Modifying
+	@Query("update TestRequest t set t.status = org.upgrad.upstac.testrequests.RequestStatus.COMPLETED, t.activeEmail = null, t.activePhoneNumber = null " +
+			"where t.requestId = :id and t.status = :from")
+	int compareAndSetCompleted(@Param("id") Long id, @Param("from") RequestStatus from);
+
+	//Work queue claims, oldest request first. The lock skips the rows other workers have claimed but not committed yet,
+	//the dialect renders it as "for update skip locked" on MySQL 8 and as a plain "for update" on H2
+	String SKIP_LOCKED = "" + LockOptions.SKIP_LOCKED;
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = SKIP_LOCKED))
+	@Query("select t from TestRequest t where t.status = :status order by t.requestId")
+	List<TestRequest> claimByStatus(@Param("status") RequestStatus status, Pageable pageable);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = SKIP_LOCKED))
+	@Query("select t from TestRequest t where t.status = :status and t.pinCode = :pinCode order by t.requestId")
+	List<TestRequest> claimByStatusAndPinCode(@Param("status") RequestStatus status, @Param("pinCode") Integer pinCode, Pageable pageable);
+
 	Optional<TestRequest> findByCreatedByAndRequestId(User user,Long id);
 	List<TestRequest> findByEmail(String email);
 	List<TestRequest> findByEmailOrPhoneNumber(String email,String phoneNumber);
 
+	boolean existsByActiveEmail(String email);
+	boolean existsByActivePhoneNumber(String phoneNumber);
+
+	//Two lookups on the unique keys rather than one OR, so each of them can use its index
+	default boolean existsInProgressWithEmailOrPhoneNumber(String email, String phoneNumber) {
+
+		return existsByActiveEmail(email) || existsByActivePhoneNumber(phoneNumber);
+	}
+
 	List<TestRequest> findByPhoneNumber(String phoneNumber);
 
 	void deleteById(Long id);
@@ -30,6 +81,58 @@ public interface TestRequestRepository extends JpaRepository<TestRequest,Long> {
 	List<TestRequest> findByName(String name);
 
 	List<TestRequest> findByStatus(RequestStatus status);
-	
+
+	String SUMMARY_SELECT = "select new org.upgrad.upstac.testrequests.TestRequestSummary(t.requestId, t.name, t.gender, t.age, t.address, t.pinCode, t.email, t.phoneNumber, t.status, t.created) " +
+			"from TestRequest t ";
+
+	String DETAIL_COLUMNS = "select new org.upgrad.upstac.testrequests.TestRequestDetail(t.requestId, t.name, t.gender, t.age, t.address, t.pinCode, t.email, t.phoneNumber, t.status, t.created, " +
+			"l.resultId, l.bloodPressure, l.heartBeat, l.temperature, l.oxygenLevel, l.comments, l.result, l.updatedOn, tester.userName, " +
+			"c.id, c.suggestion, c.comments, c.updatedOn, doctor.userName) ";
+
+	String DETAIL_SELECT = DETAIL_COLUMNS +
+			"from TestRequest t left join t.labResult l left join l.tester tester left join t.consultation c left join c.doctor doctor ";
+
+	//The tester and doctor listings start from the lab result or consultation, so the filter on them can use their index
+	String DETAIL_SELECT_BY_LAB_RESULT = DETAIL_COLUMNS +
+			"from LabResult l join l.request t left join l.tester tester left join t.consultation c left join c.doctor doctor ";
+
+	String DETAIL_SELECT_BY_CONSULTATION = DETAIL_COLUMNS +
+			"from Consultation c join c.request t left join t.labResult l left join l.tester tester left join c.doctor doctor ";
+
+	//Keyset pagination, the cursor is the last requestId of the previous page and the Pageable only carries the limit
+	@Query(SUMMARY_SELECT + "where t.status = :status and t.requestId > :cursor order by t.requestId")
+	List<TestRequestSummary> findSummariesByStatus(@Param("status") RequestStatus status, @Param("cursor") Long cursor, Pageable pageable);
+
+	@Query(DETAIL_SELECT + "where t.status = :status and t.requestId > :cursor order by t.requestId")
+	List<TestRequestDetail> findDetailsByStatus(@Param("status") RequestStatus status, @Param("cursor") Long cursor, Pageable pageable);
+
+	@Query(DETAIL_SELECT + "where t.createdBy = :user and t.requestId > :cursor order by t.requestId")
+	List<TestRequestDetail> findDetailsByCreatedBy(@Param("user") User user, @Param("cursor") Long cursor, Pageable pageable);
+
+	@Query(DETAIL_SELECT_BY_LAB_RESULT + "where l.tester = :tester and t.requestId > :cursor order by t.requestId")
+	List<TestRequestDetail> findDetailsByTester(@Param("tester") User tester, @Param("cursor") Long cursor, Pageable pageable);
+
+	@Query(DETAIL_SELECT_BY_CONSULTATION + "where c.doctor = :doctor and t.requestId > :cursor order by t.requestId")
+	List<TestRequestDetail> findDetailsByDoctor(@Param("doctor") User doctor, @Param("cursor") Long cursor, Pageable pageable);
+
+	@Query(DETAIL_SELECT + "where t.requestId = :requestId")
+	Optional<TestRequestDetail> findDetailByRequestId(@Param("requestId") Long requestId);
+
+	//Filters left null match every request
+	@Query(DETAIL_SELECT + "where (:status is null or t.status = :status) and (:pinCode is null or t.pinCode = :pinCode) " +
+			"and (:createdFrom is null or t.created >= :createdFrom) and (:createdTo is null or t.created < :createdTo) " +
+			"and t.requestId > :cursor order by t.requestId")
+	List<TestRequestDetail> findDetailsForExport(@Param("status") RequestStatus status, @Param("pinCode") Integer pinCode,
+												 @Param("createdFrom") Instant createdFrom, @Param("createdTo") Instant createdTo,
+												 @Param("cursor") Long cursor, Pageable pageable);
+
+	//Used to rebuild the dashboard counters
+	@Query("select new org.upgrad.upstac.testrequests.dashboard.GroupCount(t.status, count(t)) from TestRequest t group by t.status")
+	List<GroupCount> countByStatus();
+
+	//Requests per pin code created within [from, to), DashboardCounters asks for one day at a time with the boundaries of its zone
+	@Query("select new org.upgrad.upstac.testrequests.dashboard.GroupCount(t.pinCode, count(t)) from TestRequest t " +
+			"where t.created >= :from and t.created < :to and t.pinCode is not null group by t.pinCode")
+	List<GroupCount> countByPinCodeCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
 
 }
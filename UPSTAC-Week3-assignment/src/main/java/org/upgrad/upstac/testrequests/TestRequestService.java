@@ -3,12 +3,20 @@ package org.upgrad.upstac.testrequests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.testrequests.dashboard.DashboardCounters;
 import org.upgrad.upstac.users.User;
 
-import java.time.LocalDate;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+
+import static org.upgrad.upstac.shared.CursorPage.firstPageOf;
+import static org.upgrad.upstac.shared.CursorPage.limitOf;
+import static org.upgrad.upstac.shared.CursorPage.startOf;
 
 @Service
 public class TestRequestService {
@@ -16,10 +24,18 @@ public class TestRequestService {
     @Autowired
     private TestRequestRepository testRequestRepository;
 
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
 
 
     private static Logger logger = LoggerFactory.getLogger(TestRequestService.class);
 
+    private static final String REQUEST_IN_PROGRESS = "A Request with same PhoneNumber or Email is already in progress ";
+
+    //The unique keys V3 puts on the active email and phone number, any other violation is not a duplicate request
+    private static final String[] ACTIVE_REQUEST_KEYS = {"uk_test_request_active_email", "uk_test_request_active_phone_number"};
+
 
 
     public TestRequest createTestRequestFrom(User user,CreateTestRequest createTestRequest) {
@@ -29,7 +45,7 @@ public class TestRequestService {
         TestRequest testRequest = new TestRequest();
 
         testRequest.setName(createTestRequest.getName());
-        testRequest.setCreated(LocalDate.now());
+        testRequest.setCreated(Instant.now());
         testRequest.setStatus(RequestStatus.INITIATED);
         testRequest.setAge(createTestRequest.getAge());
         testRequest.setEmail(createTestRequest.getEmail());
@@ -39,19 +55,42 @@ public class TestRequestService {
         testRequest.setGender(createTestRequest.getGender());
 
         testRequest.setCreatedBy(user);
-        return testRequestRepository.save(testRequest);
+
+        //The check above is only a fast path, two concurrent creates are caught by the unique keys on the active email and phone number
+        TestRequest saved;
+        try {
+            saved = testRequestRepository.save(testRequest);
+        }
+        catch (DataIntegrityViolationException e) {
+            if (false == violatesActiveRequestKey(e))
+                throw e;
+            throw new AppException(REQUEST_IN_PROGRESS);
+        }
+
+        dashboardCounters.requestCreated(saved);
+        return saved;
     }
 
-    public void validateExistingRequestsNotPresentWithSameDetails(CreateTestRequest createTestRequest) {
-        List<TestRequest> testRequests = testRequestRepository.findByEmailOrPhoneNumber(createTestRequest.getEmail(), createTestRequest.getPhoneNumber());
+    //The drivers name the key in their message, H2 in upper case, so the whole cause chain is searched for it
+    static boolean violatesActiveRequestKey(DataIntegrityViolationException e) {
 
+        for (Throwable cause = e; null != cause; cause = cause.getCause()) {
 
-        for (TestRequest testRequest : testRequests) {
+            String message = null == cause.getMessage() ? "" : cause.getMessage().toLowerCase(Locale.ROOT);
 
-            if (testRequest.getStatus().equals(RequestStatus.COMPLETED) == false)
-                throw new AppException("A Request with same PhoneNumber or Email is already in progress ");
+            for (String key : ACTIVE_REQUEST_KEYS)
+                if (message.contains(key))
+                    return true;
         }
 
+        return false;
+    }
+
+    public void validateExistingRequestsNotPresentWithSameDetails(CreateTestRequest createTestRequest) {
+
+        if (testRequestRepository.existsInProgressWithEmailOrPhoneNumber(createTestRequest.getEmail(), createTestRequest.getPhoneNumber()))
+            throw new AppException(REQUEST_IN_PROGRESS);
+
     }
 
     public List<TestRequest> findByStatus(RequestStatus requestStatus){
@@ -59,9 +98,11 @@ public class TestRequestService {
         return testRequestRepository.findByStatus(requestStatus);
     }
 
-    public List<TestRequest> getHistoryFor(User loggedInUser){
+    public CursorPage<TestRequestDetail> getHistoryFor(User loggedInUser, Long cursor, Integer limit){
 
-        return testRequestRepository.findByCreatedBy(loggedInUser);
+        int pageSize = limitOf(limit);
+        List<TestRequestDetail> testRequests = testRequestRepository.findDetailsByCreatedBy(loggedInUser, startOf(cursor), firstPageOf(pageSize));
+        return CursorPage.of(testRequests, pageSize, TestRequestDetail::getRequestId);
     }
 
 
@@ -0,0 +1,26 @@
+package org.upgrad.upstac.testrequests;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.time.Instant;
+
+//Read only view of a request's own columns, used for queues where the lab result and consultation are not needed
+//Built straight from a constructor expression, so no entity is loaded for it
+@Getter
+@AllArgsConstructor
+public class TestRequestSummary {
+
+    private Long requestId;
+    private String name;
+    private Gender gender;
+    private Integer age;
+    private String address;
+    private Integer pinCode;
+    private String email;
+    private String phoneNumber;
+    private RequestStatus status;
+    private Instant created;
+
+}
@@ -5,23 +5,36 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.BatchItemResult;
 import org.upgrad.upstac.testrequests.consultation.Consultation;
 import org.upgrad.upstac.testrequests.consultation.ConsultationService;
 import org.upgrad.upstac.testrequests.consultation.CreateConsultationRequest;
+import org.upgrad.upstac.testrequests.dashboard.DashboardCounters;
 import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
 import org.upgrad.upstac.testrequests.lab.LabResult;
 import org.upgrad.upstac.testrequests.lab.LabResultService;
 import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.CreateLabResultItem;
 import org.upgrad.upstac.users.User;
 
 import javax.transaction.Transactional;
 import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.upgrad.upstac.shared.CursorPage.firstPageOf;
 
 @Service
 @Slf4j
 @Validated
 public class TestRequestUpdateService {
 
+    static final int MAX_CLAIM = 50;
+
     @Autowired
     private TestRequestRepository testRequestRepository;
 
@@ -38,6 +51,10 @@ public class TestRequestUpdateService {
     private ConsultationService consultationService;
 
 
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+
     @Transactional
     public TestRequest saveTestRequest(@Valid TestRequest result) {
 
@@ -46,46 +63,159 @@ public class TestRequestUpdateService {
     }
 
 
-    TestRequest updateStatusAndSave(TestRequest testRequest, RequestStatus status) {
-        testRequest.setStatus(status);
-        return saveTestRequest(testRequest);
+    //Moves the request to the next state with a single conditional update, only one of two concurrent callers can succeed
+    //The request is loaded after the update, so the caller that lost never creates a lab result or consultation
+    private TestRequest moveToNextState(Long id, RequestStatus from, RequestStatus to, String error) {
+
+        int updated = RequestStatus.COMPLETED == to
+                ? testRequestRepository.compareAndSetCompleted(id, from)
+                : testRequestRepository.compareAndSetStatus(id, from, to);
+
+        if (updated == 0)
+            throw new AppException(error);
+
+        dashboardCounters.statusChanged(from, to);
+
+        return testRequestRepository.findByRequestId(id).orElseThrow(()-> new AppException(error));
     }
 
 
+    @Transactional
     public TestRequest assignForLabTest(Long id, User tester) {
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.INITIATED).orElseThrow(()-> new AppException("Invalid ID"));
+        TestRequest testRequest = moveToNextState(id, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, "Invalid ID");
         LabResult labResult= labResultService.assignForLabTest(testRequest,tester);
         testRequestFlowService.log(testRequest, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, tester);
         testRequest.setLabResult(labResult);
-        return updateStatusAndSave(testRequest, RequestStatus.LAB_TEST_IN_PROGRESS);
+        return testRequest;
     }
 
+    @Transactional
+    public List<TestRequest> claimForLabTest(User tester, Integer count, Integer pinCode) {
+
+        return claim(RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, count, pinCode, tester, testRequest ->
+                testRequest.setLabResult(labResultService.assignForLabTest(testRequest, tester)));
+    }
+
+    @Transactional
     public TestRequest updateLabTest(Long id,@Valid CreateLabResult createLabResult, User tester) {
 
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.LAB_TEST_IN_PROGRESS).orElseThrow(()-> new AppException("Invalid ID or State"));
+        TestRequest testRequest = moveToNextState(id, RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED, "Invalid ID or State");
 
 
         labResultService.updateLabTest(testRequest,createLabResult);
+        dashboardCounters.labResultRecorded(createLabResult.getResult());
         testRequestFlowService.log(testRequest, RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED, tester);
-        return updateStatusAndSave(testRequest, RequestStatus.LAB_TEST_COMPLETED);
+        return testRequest;
     }
 
+    //Applies a chunk of lab results in one transaction, the updates are flushed as JDBC batches on commit
+    //The requests are locked when read, a concurrent transition waits and then no longer finds them in progress
+    //Items that do not match a request in progress fail on their own, the rest of the chunk is still applied
+    @Transactional
+    public List<BatchItemResult> updateLabTests(List<CreateLabResultItem> createLabResults, User tester) {
+
+        List<Long> requestIds = createLabResults.stream().map(CreateLabResultItem::getRequestId).collect(Collectors.toList());
+
+        Map<Long, TestRequest> testRequests = testRequestRepository.findForUpdateByRequestIdInAndStatusOrderByRequestId(requestIds, RequestStatus.LAB_TEST_IN_PROGRESS)
+                .stream()
+                .collect(Collectors.toMap(TestRequest::getRequestId, Function.identity()));
+
+        Map<Long, LabResult> labResults = labResultService.findByRequests(testRequests.values());
+
+        List<BatchItemResult> results = new ArrayList<>();
+
+        for (CreateLabResultItem createLabResult : createLabResults) {
+
+            Long id = createLabResult.getRequestId();
+            TestRequest testRequest = testRequests.get(id);
+
+            //A request sent twice in the same chunk has already moved on the second time
+            if (null == testRequest || testRequest.getStatus() != RequestStatus.LAB_TEST_IN_PROGRESS) {
+                results.add(BatchItemResult.failed(id, "Invalid ID or State"));
+                continue;
+            }
+
+            if (false == labResults.containsKey(id)) {
+                results.add(BatchItemResult.failed(id, "Invalid Request"));
+                continue;
+            }
+
+            labResultService.applyLabResult(labResults.get(id), createLabResult);
+            testRequestFlowService.log(testRequest, RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED, tester);
+            testRequest.setStatus(RequestStatus.LAB_TEST_COMPLETED);
+            dashboardCounters.statusChanged(RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED);
+            dashboardCounters.labResultRecorded(createLabResult.getResult());
+
+            results.add(BatchItemResult.succeeded(id));
+        }
+
+        return results;
+    }
+
+    @Transactional
     public TestRequest assignForConsultation(Long id, User doctor) {
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.LAB_TEST_COMPLETED).orElseThrow(()-> new AppException("Invalid ID or State"));
+        TestRequest testRequest = moveToNextState(id, RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, "Invalid ID or State");
         Consultation consultation =consultationService.assignForConsultation(testRequest,doctor);
         testRequestFlowService.log(testRequest, RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, doctor);
         testRequest.setConsultation(consultation);
-        return updateStatusAndSave(testRequest, RequestStatus.DIAGNOSIS_IN_PROCESS);
+        return testRequest;
+    }
+
+
+    @Transactional
+    public List<TestRequest> claimForConsultation(User doctor, Integer count, Integer pinCode) {
+
+        return claim(RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, count, pinCode, doctor, testRequest ->
+                testRequest.setConsultation(consultationService.assignForConsultation(testRequest, doctor)));
     }
 
 
+    @Transactional
     public TestRequest updateConsultation(Long id, @Valid CreateConsultationRequest createConsultationRequest, User doctor) {
 
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.DIAGNOSIS_IN_PROCESS).orElseThrow(()-> new AppException("Invalid ID or State"));
+        TestRequest testRequest = moveToNextState(id, RequestStatus.DIAGNOSIS_IN_PROCESS, RequestStatus.COMPLETED, "Invalid ID or State");
         consultationService.updateConsultation(testRequest,createConsultationRequest);
+        dashboardCounters.consultationRecorded(createConsultationRequest.getSuggestion());
         testRequestFlowService.log(testRequest, RequestStatus.DIAGNOSIS_IN_PROCESS, RequestStatus.COMPLETED, doctor);
-        return updateStatusAndSave(testRequest, RequestStatus.COMPLETED);
+        return testRequest;
+    }
+
+    //Hands out the oldest requests waiting in the from state, those in the given pin code first
+    //Concurrent workers skip each other's locked rows, so they get distinct requests without retrying
+    private List<TestRequest> claim(RequestStatus from, RequestStatus to, Integer count, Integer pinCode, User changedBy, Consumer<TestRequest> assign) {
+
+        int limit = null == count || count <= 0 ? 1 : Math.min(count, MAX_CLAIM);
+
+        List<TestRequest> claimed = new ArrayList<>();
+
+        if (null != pinCode)
+            claimed.addAll(moveAll(testRequestRepository.claimByStatusAndPinCode(from, pinCode, firstPageOf(limit)), from, to, changedBy, assign));
+
+        //The requests claimed above are flushed with their new status before this query, so they are not picked twice
+        if (claimed.size() < limit)
+            claimed.addAll(moveAll(testRequestRepository.claimByStatus(from, firstPageOf(limit - claimed.size())), from, to, changedBy, assign));
+
+        return claimed;
     }
 
+    private List<TestRequest> moveAll(List<TestRequest> testRequests, RequestStatus from, RequestStatus to, User changedBy, Consumer<TestRequest> assign) {
+
+        List<TestRequest> moved = new ArrayList<>();
+
+        for (TestRequest testRequest : testRequests) {
+
+            //Without skip locked (H2) the row may have been moved on by the worker this one waited for
+            if (testRequest.getStatus() != from)
+                continue;
+
+            testRequest.setStatus(to);
+            dashboardCounters.statusChanged(from, to);
+            assign.accept(testRequest);
+            testRequestFlowService.log(testRequest, from, to, changedBy);
+            moved.add(testRequest);
+        }
+
+        return moved;
+    }
 
 }
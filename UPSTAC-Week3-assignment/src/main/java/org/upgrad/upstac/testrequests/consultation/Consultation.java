@@ -7,7 +7,7 @@ import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.persistence.*;
-import java.time.LocalDate;
+import java.time.Instant;
 
 @Data
 @Entity
@@ -28,7 +28,7 @@ public class Consultation {
 
     private String comments;
 
-    private LocalDate updatedOn;
+    private Instant updatedOn;
 
     @ManyToOne
     User doctor;
@@ -4,23 +4,30 @@ import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadReq
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asConstraintViolation;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.validation.ConstraintViolationException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.shared.NdjsonStreamer;
 import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestDetail;
 import org.upgrad.upstac.testrequests.TestRequestQueryService;
 import org.upgrad.upstac.testrequests.TestRequestUpdateService;
 import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
@@ -52,31 +59,53 @@ public class ConsultationController {
 	@Autowired
 	private UserLoggedInService userLoggedInService;
 
+	/** The ndjson streamer. */
+	@Autowired
+	private NdjsonStreamer ndjsonStreamer;
+
 	/**
-	 * Gets the for consultations.
+	 * Gets a page of the requests waiting for consultation.
 	 *
-	 * @return the for consultations
+	 * @param cursor the last request id of the previous page
+	 * @param limit the page size
+	 * @return the page of requests
 	 */
 	@GetMapping("/in-queue")
 	@PreAuthorize("hasAnyRole('DOCTOR')")
-	public List<TestRequest> getForConsultations() {
+	public CursorPage<TestRequestDetail> getForConsultations(@RequestParam(required = false) Long cursor, @RequestParam(required = false) Integer limit) {
+
+		return testRequestQueryService.findDetailsBy(RequestStatus.LAB_TEST_COMPLETED, cursor, limit);
+
+	}
+
+	/**
+	 * Streams all requests waiting for consultation as ndjson.
+	 *
+	 * @param cursor the request id to start after
+	 * @return the streamed requests
+	 */
+	@GetMapping(value = "/in-queue", produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+	@PreAuthorize("hasAnyRole('DOCTOR')")
+	public ResponseEntity<StreamingResponseBody> streamForConsultations(@RequestParam(required = false) Long cursor) {
 
-		return testRequestQueryService.findBy(RequestStatus.LAB_TEST_COMPLETED);
+		return ndjsonStreamer.stream(cursor, next -> testRequestQueryService.findDetailsBy(RequestStatus.LAB_TEST_COMPLETED, next, CursorPage.MAX_LIMIT));
 
 	}
 
 	/**
-	 * Gets the for doctor.
+	 * Gets a page of the requests assigned to the logged in doctor.
 	 *
-	 * @return the for doctor
+	 * @param cursor the last request id of the previous page
+	 * @param limit the page size
+	 * @return the page of requests
 	 */
 	@GetMapping
 	@PreAuthorize("hasAnyRole('DOCTOR')")
-	public List<TestRequest> getForDoctor() {
+	public CursorPage<TestRequestDetail> getForDoctor(@RequestParam(required = false) Long cursor, @RequestParam(required = false) Integer limit) {
 
 		User doctor = userLoggedInService.getLoggedInUser();
 
-		return testRequestQueryService.findByDoctor(doctor);
+		return testRequestQueryService.findByDoctor(doctor, cursor, limit);
 
 	}
 
@@ -100,6 +129,26 @@ public class ConsultationController {
 		}
 	}
 
+	/**
+	 * Claims the next requests waiting for consultation and assigns them to the logged in doctor.
+	 * Concurrent doctors are handed distinct requests, oldest first.
+	 *
+	 * @param count the number of requests to claim, one when not given
+	 * @param pinCode the pin code whose requests are claimed first
+	 * @return the claimed requests with their lab result and consultation, fewer than count when the queue runs out
+	 */
+	@PreAuthorize("hasAnyRole('DOCTOR')")
+	@PutMapping("/claim")
+	public List<TestRequestDetail> claimForConsultation(@RequestParam(required = false) Integer count, @RequestParam(required = false) Integer pinCode) {
+
+		User doctor = userLoggedInService.getLoggedInUser();
+
+		return testRequestUpdateService.claimForConsultation(doctor, count, pinCode).stream()
+				.map(TestRequestDetail::of)
+				.collect(Collectors.toList());
+
+	}
+
 	/**
 	 * Update consultation.
 	 *
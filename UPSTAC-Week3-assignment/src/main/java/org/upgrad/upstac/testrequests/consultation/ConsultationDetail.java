@@ -0,0 +1,17 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class ConsultationDetail {
+
+    private DoctorSuggestion suggestion;
+    private String comments;
+    private Instant updatedOn;
+    private String doctor;
+
+}
@@ -1,8 +1,10 @@
 package org.upgrad.upstac.testrequests.consultation;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.dashboard.GroupCount;
 import org.upgrad.upstac.users.User;
 
 import java.util.List;
@@ -27,5 +29,9 @@ public interface ConsultationRepository extends JpaRepository<Consultation,Long>
 
     Optional<Consultation> findByDoctorAndRequest(User doctor,TestRequest testRequest);
 
+    //Used to rebuild the dashboard counters
+    @Query("select new org.upgrad.upstac.testrequests.dashboard.GroupCount(c.suggestion, count(c)) from Consultation c where c.suggestion is not null group by c.suggestion")
+    List<GroupCount> countBySuggestion();
+
 
 }
@@ -10,7 +10,7 @@ import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.transaction.Transactional;
-import java.time.LocalDate;
+import java.time.Instant;
 
 @Service
 @Validated
@@ -38,7 +38,7 @@ public class ConsultationService {
 
         consultation.setSuggestion(createConsultationRequest.getSuggestion());
         consultation.setComments(createConsultationRequest.getComments());
-        consultation.setUpdatedOn(LocalDate.now());
+        consultation.setUpdatedOn(Instant.now());
 
         return consultationRepository.save(consultation);
 
@@ -0,0 +1,36 @@
+package org.upgrad.upstac.testrequests.dashboard;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/government/dashboard")
+public class DashboardController {
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public DashboardSummary getSummary() {
+
+        return dashboardCounters.getSummary();
+    }
+
+    //Requests created on the day per pin code, today in the dashboard zone by default
+    @GetMapping("/pincodes")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public Map<Integer, Long> getRequestsByPinCode(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day) {
+
+        return dashboardCounters.getRequestsByPinCode(null == day ? dashboardCounters.today() : day);
+    }
+}
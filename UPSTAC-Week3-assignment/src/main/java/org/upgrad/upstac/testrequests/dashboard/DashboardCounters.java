@@ -0,0 +1,192 @@
+package org.upgrad.upstac.testrequests.dashboard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.shared.AfterCommit;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//Running counts for the government dashboard, so reading it never touches the request tables
+//Every change is counted once its transaction commits, and the counts are rebuilt from the tables
+//on start and then every reconcile interval, which also corrects any drift between instances
+//Requests are counted on the day they were created in the configured zone, live and rebuilt counts alike,
+//so neither the jvm nor the database session time zone moves a request to another day
+@Component
+@Slf4j
+public class DashboardCounters {
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private LabResultRepository labResultRepository;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Value("${dashboard.pin-code-days:30}")
+    private int pinCodeDays;
+
+    @Value("${dashboard.zone:UTC}")
+    private ZoneId zone = ZoneOffset.UTC;
+
+    private volatile Counts counts = new Counts();
+
+
+    public void requestCreated(TestRequest testRequest) {
+
+        RequestStatus status = testRequest.getStatus();
+        Integer pinCode = testRequest.getPinCode();
+        LocalDate day = dayOf(testRequest.getCreated());
+
+        AfterCommit.run(() -> {
+            Counts current = counts;
+            increment(current.byStatus, status);
+
+            if (null != pinCode)
+                increment(current.byDayAndPinCode.computeIfAbsent(day, key -> new ConcurrentHashMap<>()), pinCode);
+        });
+    }
+
+    public void statusChanged(RequestStatus from, RequestStatus to) {
+
+        AfterCommit.run(() -> {
+            Counts current = counts;
+            current.byStatus.computeIfAbsent(from, key -> new LongAdder()).decrement();
+            increment(current.byStatus, to);
+        });
+    }
+
+    public void labResultRecorded(TestStatus result) {
+
+        if (null != result)
+            AfterCommit.run(() -> increment(counts.byResult, result));
+    }
+
+    public void consultationRecorded(DoctorSuggestion suggestion) {
+
+        if (null != suggestion)
+            AfterCommit.run(() -> increment(counts.bySuggestion, suggestion));
+    }
+
+
+    public DashboardSummary getSummary() {
+
+        Counts current = counts;
+
+        return new DashboardSummary(
+                snapshotOf(current.byStatus, new EnumMap<>(RequestStatus.class), RequestStatus.values()),
+                snapshotOf(current.byResult, new EnumMap<>(TestStatus.class), TestStatus.values()),
+                snapshotOf(current.bySuggestion, new EnumMap<>(DoctorSuggestion.class), DoctorSuggestion.values()),
+                current.reconciledAt);
+    }
+
+    public Map<Integer, Long> getRequestsByPinCode(LocalDate day) {
+
+        Map<Integer, Long> requests = new TreeMap<>();
+        counts.byDayAndPinCode.getOrDefault(day, new ConcurrentHashMap<>())
+                .forEach((pinCode, count) -> requests.put(pinCode, count.sum()));
+
+        return requests;
+    }
+
+
+    //Changes committed while the tables are being read can be counted twice or not at all, the next run corrects them
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${dashboard.reconcile-interval-ms:600000}", initialDelayString = "${dashboard.reconcile-interval-ms:600000}")
+    public void reconcile() {
+
+        Counts rebuilt = new Counts();
+        rebuilt.reconciledAt = Instant.now();
+
+        testRequestRepository.countByStatus()
+                .forEach(row -> rebuilt.byStatus.put((RequestStatus) row.getKey(), adderOf(row.getCount())));
+
+        labResultRepository.countByResult()
+                .forEach(row -> rebuilt.byResult.put((TestStatus) row.getKey(), adderOf(row.getCount())));
+
+        consultationRepository.countBySuggestion()
+                .forEach(row -> rebuilt.bySuggestion.put((DoctorSuggestion) row.getKey(), adderOf(row.getCount())));
+
+        LocalDate today = today();
+
+        for (LocalDate day = today.minusDays(pinCodeDays); false == day.isAfter(today); day = day.plusDays(1)) {
+
+            Map<Integer, LongAdder> byPinCode = new ConcurrentHashMap<>();
+
+            testRequestRepository.countByPinCodeCreatedBetween(startOf(day), startOf(day.plusDays(1)))
+                    .forEach(row -> byPinCode.put((Integer) row.getKey(), adderOf(row.getCount())));
+
+            if (false == byPinCode.isEmpty())
+                rebuilt.byDayAndPinCode.put(day, byPinCode);
+        }
+
+        counts = rebuilt;
+        log.debug("Dashboard counters reconciled at {}", rebuilt.reconciledAt);
+    }
+
+
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    private LocalDate dayOf(Instant instant) {
+        return (null == instant ? Instant.now() : instant).atZone(zone).toLocalDate();
+    }
+
+    private Instant startOf(LocalDate day) {
+        return day.atStartOfDay(zone).toInstant();
+    }
+
+    private static <K> void increment(Map<K, LongAdder> counters, K key) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    private static LongAdder adderOf(Long count) {
+        LongAdder adder = new LongAdder();
+        adder.add(count);
+        return adder;
+    }
+
+    //Every key is listed, with a zero count when nothing has been counted for it yet
+    private static <K extends Enum<K>> Map<K, Long> snapshotOf(Map<K, LongAdder> counters, EnumMap<K, Long> snapshot, K[] keys) {
+
+        for (K key : keys) {
+            LongAdder count = counters.get(key);
+            snapshot.put(key, null == count ? 0L : count.sum());
+        }
+
+        return snapshot;
+    }
+
+
+    private static class Counts {
+
+        final Map<RequestStatus, LongAdder> byStatus = new ConcurrentHashMap<>();
+        final Map<TestStatus, LongAdder> byResult = new ConcurrentHashMap<>();
+        final Map<DoctorSuggestion, LongAdder> bySuggestion = new ConcurrentHashMap<>();
+        final Map<LocalDate, Map<Integer, LongAdder>> byDayAndPinCode = new ConcurrentHashMap<>();
+        Instant reconciledAt;
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.upgrad.upstac.testrequests.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+
+import java.time.Instant;
+import java.util.Map;
+
+//reconciledAt is when the counts were last rebuilt from the tables, null until the first rebuild
+@Getter
+@AllArgsConstructor
+public class DashboardSummary {
+
+    private Map<RequestStatus, Long> requestsByStatus;
+    private Map<TestStatus, Long> labResultsByResult;
+    private Map<DoctorSuggestion, Long> consultationsBySuggestion;
+    private Instant reconciledAt;
+
+}
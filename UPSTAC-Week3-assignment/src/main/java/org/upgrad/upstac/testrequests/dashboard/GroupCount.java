@@ -0,0 +1,14 @@
+package org.upgrad.upstac.testrequests.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Row of a count grouped by a single column, an enum or the pin code, built from a constructor expression
+@Getter
+@AllArgsConstructor
+public class GroupCount {
+
+    private Object key;
+    private Long count;
+
+}
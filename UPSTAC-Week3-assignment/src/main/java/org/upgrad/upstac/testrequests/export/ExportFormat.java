@@ -0,0 +1,26 @@
+package org.upgrad.upstac.testrequests.export;
+
+import org.upgrad.upstac.shared.NdjsonStreamer;
+
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON(NdjsonStreamer.APPLICATION_NDJSON_VALUE, "ndjson");
+
+    private final String mediaType;
+    private final String extension;
+
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,36 @@
+package org.upgrad.upstac.testrequests.export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/government/exports")
+public class TestRequestExportController {
+
+    @Autowired
+    private TestRequestExporter testRequestExporter;
+
+
+    //All requests with their lab result and consultation, format is CSV or NDJSON, optionally gzip compressed
+    //from and to are ISO-8601 instants and filter on the creation of the request
+    @GetMapping("/testrequests")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ResponseEntity<StreamingResponseBody> exportTestRequests(@RequestParam(required = false) RequestStatus status,
+                                                                    @RequestParam(required = false) Integer pinCode,
+                                                                    @RequestParam(required = false) Instant from,
+                                                                    @RequestParam(required = false) Instant to,
+                                                                    @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                                    @RequestParam(defaultValue = "false") boolean gzip) {
+
+        return testRequestExporter.export(new TestRequestExportFilter(status, pinCode, from, to), format, gzip);
+    }
+}
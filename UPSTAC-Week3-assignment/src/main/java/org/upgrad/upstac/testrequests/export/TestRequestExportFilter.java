@@ -0,0 +1,19 @@
+package org.upgrad.upstac.testrequests.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.Instant;
+
+//Every filter is optional, the created window is half open
+@Getter
+@AllArgsConstructor
+public class TestRequestExportFilter {
+
+    private RequestStatus status;
+    private Integer pinCode;
+    private Instant createdFrom;
+    private Instant createdTo;
+
+}
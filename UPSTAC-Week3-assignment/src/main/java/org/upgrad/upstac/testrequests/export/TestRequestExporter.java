@@ -0,0 +1,107 @@
+package org.upgrad.upstac.testrequests.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.upgrad.upstac.shared.CsvWriter;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.testrequests.TestRequestDetail;
+import org.upgrad.upstac.testrequests.TestRequestQueryService;
+import org.upgrad.upstac.testrequests.consultation.ConsultationDetail;
+import org.upgrad.upstac.testrequests.lab.LabResultDetail;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+//Streams the requests matching a filter, with their lab result and consultation, straight into the response
+//The requests are read a keyset page at a time, so only one page is in memory whatever the size of the export
+@Component
+public class TestRequestExporter {
+
+    static final String CSV_HEADER = CsvWriter.line("requestId", "name", "gender", "age", "address", "pinCode", "email", "phoneNumber", "status", "created",
+            "bloodPressure", "heartBeat", "temperature", "oxygenLevel", "labComments", "result", "labUpdatedOn", "tester",
+            "suggestion", "consultationComments", "consultationUpdatedOn", "doctor");
+
+    private static final byte[] NEW_LINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestRequestQueryService testRequestQueryService;
+
+
+    public ResponseEntity<StreamingResponseBody> export(TestRequestExportFilter filter, ExportFormat format, boolean gzip) {
+
+        ObjectWriter jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        StreamingResponseBody body = outputStream -> {
+
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, 8192) : new BufferedOutputStream(outputStream);
+
+            if (ExportFormat.CSV == format)
+                out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+
+            Long next = CursorPage.startOf(null);
+
+            while (null != next) {
+                CursorPage<TestRequestDetail> page = testRequestQueryService.findForExport(filter, next);
+
+                for (TestRequestDetail testRequest : page.getItems()) {
+
+                    if (ExportFormat.CSV == format) {
+                        writeCsv(out, testRequest);
+                    } else {
+                        jsonWriter.writeValue(out, testRequest);
+                        out.write(NEW_LINE);
+                    }
+                }
+                out.flush();
+                next = page.getNextCursor();
+            }
+
+            //Writes the gzip trailer, the servlet container closes the response stream itself
+            if (out instanceof GZIPOutputStream)
+                ((GZIPOutputStream) out).finish();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"testrequests." + format.getExtension() + "\"");
+
+        if (gzip)
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        return response.body(body);
+    }
+
+    private void writeCsv(OutputStream out, TestRequestDetail testRequest) throws IOException {
+
+        LabResultDetail labResult = testRequest.getLabResult();
+        ConsultationDetail consultation = testRequest.getConsultation();
+        boolean tested = null != labResult;
+        boolean consulted = null != consultation;
+
+        String line = CsvWriter.line(testRequest.getRequestId(), testRequest.getName(), testRequest.getGender(), testRequest.getAge(),
+                testRequest.getAddress(), testRequest.getPinCode(), testRequest.getEmail(), testRequest.getPhoneNumber(),
+                testRequest.getStatus(), testRequest.getCreated(),
+                tested ? labResult.getBloodPressure() : null, tested ? labResult.getHeartBeat() : null,
+                tested ? labResult.getTemperature() : null, tested ? labResult.getOxygenLevel() : null,
+                tested ? labResult.getComments() : null, tested ? labResult.getResult() : null,
+                tested ? labResult.getUpdatedOn() : null, tested ? labResult.getTester() : null,
+                consulted ? consultation.getSuggestion() : null, consulted ? consultation.getComments() : null,
+                consulted ? consultation.getUpdatedOn() : null, consulted ? consultation.getDoctor() : null);
+
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+//Time the requests spent in a stage, as percentiles in milliseconds
+//The percentiles are null when no request left the stage within the window
+@Getter
+@AllArgsConstructor
+public class StageLatency {
+
+    private RequestStatus fromStatus;
+    private RequestStatus toStatus;
+    private int count;
+    private Long p50Millis;
+    private Long p90Millis;
+    private Long p99Millis;
+    private Long maxMillis;
+
+
+    //The percentiles are within the precision of the histogram, the max is the exact longest duration
+    public static StageLatency of(RequestStatus fromStatus, RequestStatus toStatus, Histogram durations, long maxMillis) {
+
+        if (durations.getTotalCount() == 0)
+            return new StageLatency(fromStatus, toStatus, 0, null, null, null, null);
+
+        return new StageLatency(fromStatus, toStatus, (int) durations.getTotalCount(),
+                percentile(durations, 50, maxMillis),
+                percentile(durations, 90, maxMillis),
+                percentile(durations, 99, maxMillis),
+                maxMillis);
+    }
+
+    //The histogram reports the top of the bucket a value fell in, which can be above the longest duration seen
+    static long percentile(Histogram durations, double percentile, long maxMillis) {
+
+        return Math.min(durations.getValueAtPercentile(percentile), maxMillis);
+    }
+
+}
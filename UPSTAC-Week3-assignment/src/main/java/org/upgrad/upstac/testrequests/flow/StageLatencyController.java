@@ -0,0 +1,41 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.upgrad.upstac.exception.AppException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
+
+@RestController
+@RequestMapping("/api/government/stage-latencies")
+public class StageLatencyController {
+
+    private static final Duration DEFAULT_WINDOW = Duration.ofDays(1);
+
+    @Autowired
+    private StageLatencyService stageLatencyService;
+
+
+    //from and to are ISO-8601 instants, such as 2020-08-01T00:00:00Z, by default the last day
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<StageLatency> getStageLatencies(@RequestParam(required = false) Instant from, @RequestParam(required = false) Instant to) {
+
+        Instant end = null == to ? Instant.now() : to;
+        Instant start = null == from ? end.minus(DEFAULT_WINDOW) : from;
+
+        try {
+            return stageLatencyService.findStageLatencies(start, end);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.IntCountsHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.upgrad.upstac.shared.CursorPage.firstPageOf;
+
+@Service
+public class StageLatencyService {
+
+    static final int PAGE_SIZE = CursorPage.MAX_LIMIT;
+
+    static final long HIGHEST_TRACKABLE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    //Three digits keep each percentile within 0.1% of the exact value
+    static final int SIGNIFICANT_DIGITS = 3;
+
+    @Autowired
+    private TestRequestFlowRepository testRequestFlowRepository;
+
+
+    //One entry per stage, in the order a request goes through them
+    public List<StageLatency> findStageLatencies(Instant start, Instant end) {
+
+        if (false == start.isBefore(end))
+            throw new AppException("Invalid time window");
+
+        RequestStatus[] statuses = RequestStatus.values();
+        List<StageLatency> latencies = new ArrayList<>();
+
+        for (int i = 1; i < statuses.length; i++)
+            latencies.add(findStageLatency(statuses[i - 1], statuses[i], start, end));
+
+        return latencies;
+    }
+
+    //The timings are read a page at a time in the order of the flow index, into a histogram, so the memory used does not grow with the number of requests
+    //Durations above HIGHEST_TRACKABLE_MILLIS count as that long in the percentiles, the max is still exact
+    StageLatency findStageLatency(RequestStatus from, RequestStatus to, Instant start, Instant end) {
+
+        Histogram durations = new IntCountsHistogram(HIGHEST_TRACKABLE_MILLIS, SIGNIFICANT_DIGITS);
+        long maxMillis = 0L;
+        Instant cursorHappenedOn = start;
+        long cursorId = 0L;
+        List<StageTiming> page;
+
+        do {
+            page = findTimings(from, to, start, end, cursorHappenedOn, cursorId);
+
+            for (StageTiming timing : page) {
+
+                long millis = Math.max(timing.getMillis(), 0L);
+                durations.recordValue(Math.min(millis, HIGHEST_TRACKABLE_MILLIS));
+                maxMillis = Math.max(maxMillis, millis);
+            }
+
+            if (false == page.isEmpty()) {
+                StageTiming last = page.get(page.size() - 1);
+                cursorHappenedOn = last.getEndedAt();
+                cursorId = last.getFlowId();
+            }
+
+        } while (page.size() == PAGE_SIZE);
+
+        return StageLatency.of(from, to, durations, maxMillis);
+    }
+
+    private List<StageTiming> findTimings(RequestStatus from, RequestStatus to, Instant start, Instant end, Instant cursorHappenedOn, long cursorId) {
+
+        if (RequestStatus.INITIATED == from)
+            return testRequestFlowRepository.findTimingsSinceCreation(to, start, end, cursorHappenedOn, cursorId, firstPageOf(PAGE_SIZE));
+
+        return testRequestFlowRepository.findStageTimings(from, to, start, end, cursorHappenedOn, cursorId, firstPageOf(PAGE_SIZE));
+    }
+
+}
@@ -0,0 +1,23 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+
+//When a request entered a stage and when it left it, keyed by the flow that moved it out
+@Getter
+@AllArgsConstructor
+public class StageTiming {
+
+    private Long flowId;
+    private Instant startedAt;
+    private Instant endedAt;
+
+
+    public long getMillis() {
+        return Duration.between(startedAt, endedAt).toMillis();
+    }
+
+}
@@ -7,7 +7,7 @@ import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.persistence.*;
-import java.time.LocalDate;
+import java.time.Instant;
 
 @Data
 @Entity
@@ -30,7 +30,7 @@ public class TestRequestFlow {
     @ManyToOne
     private User changedBy;
 
-    private LocalDate happenedOn=LocalDate.now();
+    private Instant happenedOn=Instant.now();
 
 
 
@@ -0,0 +1,39 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import lombok.Value;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.Instant;
+
+//A status change waiting to be written to test_request_flow, it only holds ids so it outlives the persistence context
+@Value
+public class TestRequestFlowEntry {
+
+    Long requestId;
+    RequestStatus fromStatus;
+    RequestStatus toStatus;
+    Long changedById;
+    Instant happenedOn;
+
+
+    String toLine() {
+        return requestId + "," + fromStatus + "," + toStatus + "," + changedById + "," + happenedOn;
+    }
+
+    static TestRequestFlowEntry fromLine(String line) {
+
+        String[] values = line.split(",");
+
+        return new TestRequestFlowEntry(
+                idOf(values[0]),
+                RequestStatus.valueOf(values[1]),
+                RequestStatus.valueOf(values[2]),
+                idOf(values[3]),
+                Instant.parse(values[4]));
+    }
+
+    private static Long idOf(String value) {
+        return "null".equals(value) ? null : Long.valueOf(value);
+    }
+
+}
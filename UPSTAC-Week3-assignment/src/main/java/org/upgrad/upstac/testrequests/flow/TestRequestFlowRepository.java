@@ -1,8 +1,13 @@
 package org.upgrad.upstac.testrequests.flow;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,5 +27,38 @@ public interface TestRequestFlowRepository extends JpaRepository<TestRequestFlow
 
     List<TestRequestFlow> findByRequest(TestRequest request);
 
+    //Time windows are half open, from start up to but excluding end
+    //Keyset pagination in happenedOn then id order, the order of the happened_on indexes (innodb ends every index with the id),
+    //so a page reads only its own rows instead of the whole window again
+    //The cursor is the happenedOn and id of the last flow of the previous page, start and 0 for the first page
+    String AFTER_CURSOR = "(f.happenedOn > :cursorHappenedOn or (f.happenedOn = :cursorHappenedOn and f.id > :cursorId)) ";
+
+    @Query("select f from TestRequestFlow f where f.happenedOn >= :start and f.happenedOn < :end and " + AFTER_CURSOR +
+            "order by f.happenedOn, f.id")
+    List<TestRequestFlow> findByHappenedOn(@Param("start") Instant start, @Param("end") Instant end,
+                                           @Param("cursorHappenedOn") Instant cursorHappenedOn, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select f from TestRequestFlow f where f.toStatus = :toStatus and f.happenedOn >= :start and f.happenedOn < :end and " + AFTER_CURSOR +
+            "order by f.happenedOn, f.id")
+    List<TestRequestFlow> findByToStatusAndHappenedOn(@Param("toStatus") RequestStatus toStatus, @Param("start") Instant start, @Param("end") Instant end,
+                                                      @Param("cursorHappenedOn") Instant cursorHappenedOn, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    //Start and end of a stage for the requests that left it within the window, a stage starts when the request moved into it
+    //f is the flow that ended the stage, the one paged on
+    @Query("select new org.upgrad.upstac.testrequests.flow.StageTiming(f.id, s.happenedOn, f.happenedOn) " +
+            "from TestRequestFlow f, TestRequestFlow s " +
+            "where f.fromStatus = :from and f.toStatus = :to and f.happenedOn >= :start and f.happenedOn < :end and " + AFTER_CURSOR +
+            "and s.request = f.request and s.toStatus = :from order by f.happenedOn, f.id")
+    List<StageTiming> findStageTimings(@Param("from") RequestStatus from, @Param("to") RequestStatus to, @Param("start") Instant start, @Param("end") Instant end,
+                                       @Param("cursorHappenedOn") Instant cursorHappenedOn, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    //No flow moves a request into INITIATED, that stage starts when the request is created
+    @Query("select new org.upgrad.upstac.testrequests.flow.StageTiming(f.id, t.created, f.happenedOn) " +
+            "from TestRequestFlow f join f.request t " +
+            "where f.fromStatus = org.upgrad.upstac.testrequests.RequestStatus.INITIATED and f.toStatus = :to " +
+            "and f.happenedOn >= :start and f.happenedOn < :end and " + AFTER_CURSOR + "order by f.happenedOn, f.id")
+    List<StageTiming> findTimingsSinceCreation(@Param("to") RequestStatus to, @Param("start") Instant start, @Param("end") Instant end,
+                                               @Param("cursorHappenedOn") Instant cursorHappenedOn, @Param("cursorId") Long cursorId, Pageable pageable);
+
 
 }
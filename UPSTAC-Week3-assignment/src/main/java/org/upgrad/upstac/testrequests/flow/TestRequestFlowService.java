@@ -1,16 +1,21 @@
 package org.upgrad.upstac.testrequests.flow;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
+import org.upgrad.upstac.shared.AfterCommit;
+import org.upgrad.upstac.shared.logging.LogCategory;
+import org.upgrad.upstac.shared.logging.LogSampler;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.users.User;
 
-import javax.transaction.Transactional;
+import java.time.Instant;
 import java.util.List;
 
 @Service
+@Slf4j
 @Validated
 public class TestRequestFlowService {
 
@@ -18,18 +23,30 @@ public class TestRequestFlowService {
     private TestRequestFlowRepository testRequestFlowRepository;
 
 
-    @Transactional
+    @Autowired
+    private TestRequestFlowWriter testRequestFlowWriter;
+
+
+    @Autowired
+    private LogSampler logSampler;
+
+
+    //The entry is only handed to the writer once the transaction of the status change commits,
+    //a status change that is rolled back leaves no trace in the flow
     public void log(TestRequest testRequest, RequestStatus from, RequestStatus to, User changedBy) {
-        TestRequestFlow testRequestFlow = new TestRequestFlow();
-        testRequestFlow.setChangedBy(changedBy);
-        testRequestFlow.setRequest(testRequest);
-        testRequestFlow.setFromStatus(from);
-        testRequestFlow.setToStatus(to);
-        testRequestFlowRepository.save(testRequestFlow);
-    }
 
+        TestRequestFlowEntry entry = new TestRequestFlowEntry(testRequest.getRequestId(), from, to,
+                null == changedBy ? null : changedBy.getId(), Instant.now());
+
+        AfterCommit.run(() -> {
+            testRequestFlowWriter.append(entry);
+            if (log.isInfoEnabled() && logSampler.sample(LogCategory.TRANSITIONS))
+                log.info("transition testRequestId={} from={} to={} userId={}", entry.getRequestId(), from, to, entry.getChangedById());
+        });
+    }
 
 
+    //Reads what has been written so far, the latest changes may still be waiting in the writer
     public List<TestRequestFlow> findByRequest(TestRequest testRequest) {
 
         return testRequestFlowRepository.findByRequest(testRequest);
@@ -0,0 +1,315 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+//Appends status changes to test_request_flow off the request thread
+//Entries are queued in a bounded buffer and a background thread inserts them as JDBC batches,
+//either once batchSize entries are waiting or flushIntervalMillis after the first of them arrived
+//When the buffer is full the caller inserts its own entry, so a slow database slows the callers down instead of losing entries
+//A batch is inserted in one transaction, when it fails its entries are inserted one by one
+//Entries the database refuses for good, like a request that no longer exists, are logged and skipped
+//Entries that cannot be inserted for now are appended to the fallback file, which is replayed the same way on the next start
+@Component
+@Slf4j
+public class TestRequestFlowWriter {
+
+    static final String INSERT = "insert into test_request_flow (request_id, from_status, to_status, changed_by_id, happened_on) values (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${flow.writer.capacity:10000}")
+    private int capacity;
+
+    @Value("${flow.writer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${flow.writer.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${flow.writer.fallback-file:test-request-flow-fallback.csv}")
+    private String fallbackFile;
+
+    private TransactionTemplate transactionTemplate;
+
+    private BlockingQueue<TestRequestFlowEntry> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    //Appends hold the read side while they check running and offer, stop takes the write side to clear running,
+    //so no entry can be offered after stop has drained the buffer
+    private final ReadWriteLock appendLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong writtenByCaller = new AtomicLong();
+
+
+    @PostConstruct
+    public void start() {
+
+        //Callers write from after commit callbacks, a transaction of its own keeps the insert off the one just committed
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        replayFallbackFile();
+
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+
+        writer = new Thread(this::run, "test-request-flow-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    //Stops taking entries from the buffer, then writes whatever is left in it from the closing thread
+    @PreDestroy
+    public void stop() throws InterruptedException {
+
+        appendLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            appendLock.writeLock().unlock();
+        }
+
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+
+        List<TestRequestFlowEntry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+
+        if (false == remaining.isEmpty())
+            write(remaining);
+    }
+
+
+    public void append(TestRequestFlowEntry entry) {
+
+        boolean queued;
+
+        appendLock.readLock().lock();
+        try {
+            queued = running && queue.offer(entry);
+        } finally {
+            appendLock.readLock().unlock();
+        }
+
+        if (queued)
+            return;
+
+        writtenByCaller.incrementAndGet();
+        write(Collections.singletonList(entry));
+    }
+
+    //Entries the callers had to write themselves because the buffer was full or the writer was stopping
+    public long getWrittenByCaller() {
+        return writtenByCaller.get();
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+
+    private void run() {
+
+        List<TestRequestFlowEntry> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+
+                TestRequestFlowEntry first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+
+                if (null == first)
+                    continue;
+
+                batch.add(first);
+                fillUntilFlushDue(batch, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Test request flow writer failed, carrying on", e);
+            }
+
+            if (false == batch.isEmpty()) {
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    log.error("Lost {} test request flow entries: {}", batch.size(), batch, e);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillUntilFlushDue(List<TestRequestFlowEntry> batch, long flushAt) throws InterruptedException {
+
+        while (batch.size() < batchSize) {
+
+            queue.drainTo(batch, batchSize - batch.size());
+
+            long remaining = flushAt - System.nanoTime();
+
+            if (batch.size() >= batchSize || remaining <= 0)
+                return;
+
+            TestRequestFlowEntry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+
+            if (null == next)
+                return;
+
+            batch.add(next);
+        }
+    }
+
+    void write(List<TestRequestFlowEntry> entries) {
+
+        List<TestRequestFlowEntry> unwritten = insertAll(entries);
+
+        if (false == unwritten.isEmpty()) {
+            log.error("Could not write {} test request flow entries, keeping them in {}", unwritten.size(), fallbackFile);
+            appendToFallbackFile(unwritten);
+        }
+    }
+
+    //Returns the entries that could not be inserted for now, from the first one that failed for a reason other than its data
+    private List<TestRequestFlowEntry> insertAll(List<TestRequestFlowEntry> entries) {
+
+        try {
+            transactionTemplate.execute(status -> insert(entries));
+            return Collections.emptyList();
+        } catch (DataAccessException e) {
+            log.warn("Could not write a batch of {} test request flow entries, writing them one by one", entries.size(), e);
+        }
+
+        for (int i = 0; i < entries.size(); i++) {
+
+            TestRequestFlowEntry entry = entries.get(i);
+
+            try {
+                transactionTemplate.execute(status -> insert(entry));
+            } catch (DataIntegrityViolationException e) {
+                log.error("Skipping test request flow entry {}, the database refuses it", entry.toLine(), e);
+            } catch (DataAccessException e) {
+                log.warn("Could not write test request flow entry {}", entry.toLine(), e);
+                return entries.subList(i, entries.size());
+            }
+        }
+
+        return Collections.emptyList();
+    }
+
+    private int insert(TestRequestFlowEntry entry) {
+
+        return jdbcTemplate.update(INSERT, entry.getRequestId(), entry.getFromStatus().ordinal(), entry.getToStatus().ordinal(),
+                entry.getChangedById(), Timestamp.from(entry.getHappenedOn()));
+    }
+
+    private int[][] insert(List<TestRequestFlowEntry> entries) {
+
+        return jdbcTemplate.batchUpdate(INSERT, entries, batchSize, (statement, entry) -> {
+            statement.setObject(1, entry.getRequestId(), Types.BIGINT);
+            statement.setInt(2, entry.getFromStatus().ordinal());
+            statement.setInt(3, entry.getToStatus().ordinal());
+            statement.setObject(4, entry.getChangedById(), Types.BIGINT);
+            statement.setTimestamp(5, Timestamp.from(entry.getHappenedOn()));
+        });
+    }
+
+    private synchronized void appendToFallbackFile(List<TestRequestFlowEntry> entries) {
+
+        List<String> lines = entries.stream().map(TestRequestFlowEntry::toLine).collect(Collectors.toList());
+
+        try {
+            Files.write(Paths.get(fallbackFile), lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Lost {} test request flow entries: {}", entries.size(), lines, e);
+        }
+    }
+
+    //Lines that cannot be read are logged and dropped, the entries that cannot be inserted for now stay in the file
+    private void replayFallbackFile() {
+
+        Path path = Paths.get(fallbackFile);
+
+        if (false == Files.exists(path))
+            return;
+
+        try {
+
+            List<TestRequestFlowEntry> entries = new ArrayList<>();
+
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.trim().isEmpty())
+                    continue;
+                try {
+                    entries.add(TestRequestFlowEntry.fromLine(line));
+                } catch (RuntimeException e) {
+                    log.error("Skipping unreadable test request flow entry {} in {}", line, fallbackFile, e);
+                }
+            }
+
+            List<TestRequestFlowEntry> unwritten = new ArrayList<>();
+
+            for (int from = 0; from < entries.size(); from += batchSize) {
+
+                int to = Math.min(from + batchSize, entries.size());
+                unwritten.addAll(insertAll(entries.subList(from, to)));
+
+                //The database cannot be written for now, the entries not tried yet are kept as well
+                if (false == unwritten.isEmpty()) {
+                    unwritten.addAll(entries.subList(to, entries.size()));
+                    break;
+                }
+            }
+
+            if (unwritten.isEmpty()) {
+                Files.delete(path);
+                log.info("Replayed {} test request flow entries from {}", entries.size(), fallbackFile);
+            } else {
+                Files.write(path, unwritten.stream().map(TestRequestFlowEntry::toLine).collect(Collectors.toList()),
+                        StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+                log.error("Kept {} test request flow entries in {}, will try again on the next start", unwritten.size(), fallbackFile);
+            }
+
+        } catch (IOException e) {
+            log.error("Could not replay the test request flow entries in {}, will try again on the next start", fallbackFile, e);
+        }
+    }
+
+}
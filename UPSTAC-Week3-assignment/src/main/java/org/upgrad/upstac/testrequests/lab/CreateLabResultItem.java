@@ -0,0 +1,16 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import javax.validation.constraints.NotNull;
+
+//A lab result of a bulk update, the request it belongs to travels with it
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CreateLabResultItem extends CreateLabResult {
+
+    @NotNull
+    private Long requestId;
+
+}
@@ -4,24 +4,34 @@ import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadReq
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asConstraintViolation;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.validation.ConstraintViolationException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.BatchItemResult;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.shared.NdjsonStreamer;
 import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestDetail;
 import org.upgrad.upstac.testrequests.TestRequestQueryService;
+import org.upgrad.upstac.testrequests.TestRequestSummary;
 import org.upgrad.upstac.testrequests.TestRequestUpdateService;
 import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
 import org.upgrad.upstac.users.User;
@@ -33,6 +43,9 @@ import org.upgrad.upstac.users.User;
 @RequestMapping("/api/labrequests")
 public class LabRequestController {
 
+	/** The csv media type. */
+	static final String TEXT_CSV_VALUE = "text/csv";
+
 	/** The log. */
 	Logger log = LoggerFactory.getLogger(LabRequestController.class);
 
@@ -52,31 +65,57 @@ public class LabRequestController {
 	@Autowired
 	private UserLoggedInService userLoggedInService;
 
+	/** The lab result batch service. */
+	@Autowired
+	private LabResultBatchService labResultBatchService;
+
+	/** The ndjson streamer. */
+	@Autowired
+	private NdjsonStreamer ndjsonStreamer;
+
 	/**
-	 * Gets the for tests.
+	 * Gets a page of the requests waiting to be tested.
 	 *
-	 * @return the for tests
+	 * @param cursor the last request id of the previous page
+	 * @param limit the page size
+	 * @return the page of requests
 	 */
 	@GetMapping("/to-be-tested")
 	@PreAuthorize("hasAnyRole('TESTER')")
-	public List<TestRequest> getForTests() {
+	public CursorPage<TestRequestSummary> getForTests(@RequestParam(required = false) Long cursor, @RequestParam(required = false) Integer limit) {
+
+		return testRequestQueryService.findBy(RequestStatus.INITIATED, cursor, limit);
+
+	}
+
+	/**
+	 * Streams all requests waiting to be tested as ndjson.
+	 *
+	 * @param cursor the request id to start after
+	 * @return the streamed requests
+	 */
+	@GetMapping(value = "/to-be-tested", produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+	@PreAuthorize("hasAnyRole('TESTER')")
+	public ResponseEntity<StreamingResponseBody> streamForTests(@RequestParam(required = false) Long cursor) {
 
-		return testRequestQueryService.findBy(RequestStatus.INITIATED);
+		return ndjsonStreamer.stream(cursor, next -> testRequestQueryService.findBy(RequestStatus.INITIATED, next, CursorPage.MAX_LIMIT));
 
 	}
 
 	/**
-	 * Gets the for tester.
+	 * Gets a page of the requests assigned to the logged in tester.
 	 *
-	 * @return the for tester
+	 * @param cursor the last request id of the previous page
+	 * @param limit the page size
+	 * @return the page of requests
 	 */
 	@GetMapping
 	@PreAuthorize("hasAnyRole('TESTER')")
-	public List<TestRequest> getForTester() {
+	public CursorPage<TestRequestDetail> getForTester(@RequestParam(required = false) Long cursor, @RequestParam(required = false) Integer limit) {
 
 		User tester = userLoggedInService.getLoggedInUser();
 
-		return testRequestQueryService.findByTester(tester);
+		return testRequestQueryService.findByTester(tester, cursor, limit);
 
 	}
 
@@ -101,6 +140,26 @@ public class LabRequestController {
 		
 	}
 
+	/**
+	 * Claims the next requests waiting for lab test and assigns them to the logged in tester.
+	 * Concurrent testers are handed distinct requests, oldest first.
+	 *
+	 * @param count the number of requests to claim, one when not given
+	 * @param pinCode the pin code whose requests are claimed first
+	 * @return the claimed requests with their lab result and consultation, fewer than count when the queue runs out
+	 */
+	@PreAuthorize("hasAnyRole('TESTER')")
+	@PutMapping("/claim")
+	public List<TestRequestDetail> claimForLabTest(@RequestParam(required = false) Integer count, @RequestParam(required = false) Integer pinCode) {
+
+		User tester = userLoggedInService.getLoggedInUser();
+
+		return testRequestUpdateService.claimForLabTest(tester, count, pinCode).stream()
+				.map(TestRequestDetail::of)
+				.collect(Collectors.toList());
+
+	}
+
 	/**
 	 * Update lab test.
 	 *
@@ -124,4 +183,45 @@ public class LabRequestController {
 		}
 	}
 
+	/**
+	 * Updates the lab results of many requests at once.
+	 *
+	 * @param createLabResults the lab results, each with its request id
+	 * @return the outcome of every lab result, in the order they were sent
+	 */
+	@PreAuthorize("hasAnyRole('TESTER')")
+	@PutMapping(value = "/update", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public List<BatchItemResult> updateLabTests(@RequestBody List<CreateLabResultItem> createLabResults) {
+
+		try {
+
+			User tester = userLoggedInService.getLoggedInUser();
+			return labResultBatchService.updateLabTests(createLabResults, tester);
+
+		} catch (AppException e) {
+			throw asBadRequest(e.getMessage());
+		}
+	}
+
+	/**
+	 * Updates the lab results of many requests at once from a csv with a header line of
+	 * requestId,bloodPressure,heartBeat,temperature,oxygenLevel,comments,result.
+	 *
+	 * @param csv the lab results
+	 * @return the outcome of every row, in the order they were sent
+	 */
+	@PreAuthorize("hasAnyRole('TESTER')")
+	@PutMapping(value = "/update", consumes = TEXT_CSV_VALUE)
+	public List<BatchItemResult> updateLabTestsFromCsv(@RequestBody String csv) {
+
+		try {
+
+			User tester = userLoggedInService.getLoggedInUser();
+			return labResultBatchService.updateLabTestsFromCsv(csv, tester);
+
+		} catch (AppException e) {
+			throw asBadRequest(e.getMessage());
+		}
+	}
+
 }
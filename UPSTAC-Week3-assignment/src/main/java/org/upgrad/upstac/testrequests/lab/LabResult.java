@@ -7,7 +7,7 @@ import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.persistence.*;
-import java.time.LocalDate;
+import java.time.Instant;
 
 @Data
 @Entity
@@ -29,7 +29,7 @@ public class LabResult {
     private String oxygenLevel;
     private String comments;
     private TestStatus result;
-    private LocalDate updatedOn;
+    private Instant updatedOn;
 
     @ManyToOne
     private User tester;
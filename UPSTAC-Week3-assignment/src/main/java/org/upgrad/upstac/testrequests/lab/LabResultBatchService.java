@@ -0,0 +1,153 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.BatchItemResult;
+import org.upgrad.upstac.shared.CsvParser;
+import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.users.User;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//Bulk lab result ingestion, items are validated up front and the valid ones applied in chunks of CHUNK_SIZE
+//Every chunk is a single transaction, a chunk that fails as a whole only fails its own items
+@Service
+public class LabResultBatchService {
+
+    public static final int CHUNK_SIZE = 100;
+    public static final int MAX_ITEMS = 5000;
+
+    @Autowired
+    private TestRequestUpdateService testRequestUpdateService;
+
+    @Autowired
+    private Validator validator;
+
+    private static Logger logger = LoggerFactory.getLogger(LabResultBatchService.class);
+
+
+    public List<BatchItemResult> updateLabTests(List<CreateLabResultItem> createLabResults, User tester) {
+
+        return updateLabTests(createLabResults, Collections.emptyMap(), tester);
+    }
+
+    //Rows that cannot be read fail on their own, with the row number in the message
+    public List<BatchItemResult> updateLabTestsFromCsv(String csv, User tester) {
+
+        List<Map<String, String>> rows = CsvParser.parse(csv);
+        List<CreateLabResultItem> createLabResults = new ArrayList<>();
+        Map<Integer, String> unreadable = new HashMap<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                createLabResults.add(fromCsvRow(rows.get(i)));
+            } catch (RuntimeException e) {
+                createLabResults.add(requestIdOnly(rows.get(i)));
+                unreadable.put(i, "Row " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        return updateLabTests(createLabResults, unreadable, tester);
+    }
+
+
+    private List<BatchItemResult> updateLabTests(List<CreateLabResultItem> createLabResults, Map<Integer, String> unreadable, User tester) {
+
+        if (createLabResults.size() > MAX_ITEMS)
+            throw new AppException("At most " + MAX_ITEMS + " lab results can be sent at once");
+
+        BatchItemResult[] results = new BatchItemResult[createLabResults.size()];
+        List<Integer> valid = new ArrayList<>();
+
+        for (int i = 0; i < createLabResults.size(); i++) {
+
+            CreateLabResultItem createLabResult = createLabResults.get(i);
+            String error = unreadable.containsKey(i) ? unreadable.get(i) : validate(createLabResult);
+
+            if (null == error)
+                valid.add(i);
+            else
+                results[i] = BatchItemResult.failed(null == createLabResult ? null : createLabResult.getRequestId(), error);
+        }
+
+        for (int from = 0; from < valid.size(); from += CHUNK_SIZE) {
+
+            List<Integer> chunk = valid.subList(from, Math.min(from + CHUNK_SIZE, valid.size()));
+            List<CreateLabResultItem> items = chunk.stream().map(createLabResults::get).collect(Collectors.toList());
+
+            List<BatchItemResult> chunkResults = applyChunk(items, tester);
+
+            for (int i = 0; i < chunk.size(); i++)
+                results[chunk.get(i)] = chunkResults.get(i);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private List<BatchItemResult> applyChunk(List<CreateLabResultItem> items, User tester) {
+
+        try {
+            return testRequestUpdateService.updateLabTests(items, tester);
+        } catch (RuntimeException e) {
+            logger.error("Lab result chunk of {} items failed", items.size(), e);
+            return items.stream()
+                    .map(item -> BatchItemResult.failed(item.getRequestId(), "Could not be saved, please resend"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private String validate(CreateLabResultItem createLabResult) {
+
+        if (null == createLabResult)
+            return "Lab result is missing";
+
+        Set<ConstraintViolation<CreateLabResultItem>> violations = validator.validate(createLabResult);
+
+        if (violations.isEmpty())
+            return null;
+
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+
+    static CreateLabResultItem fromCsvRow(Map<String, String> row) {
+
+        CreateLabResultItem createLabResult = requestIdOnly(row);
+        createLabResult.setBloodPressure(row.get("bloodPressure"));
+        createLabResult.setHeartBeat(row.get("heartBeat"));
+        createLabResult.setTemperature(row.get("temperature"));
+        createLabResult.setOxygenLevel(row.get("oxygenLevel"));
+        createLabResult.setComments(row.get("comments"));
+        createLabResult.setResult(null == row.get("result") ? null : TestStatus.valueOf(row.get("result").toUpperCase()));
+        return createLabResult;
+    }
+
+    private static CreateLabResultItem requestIdOnly(Map<String, String> row) {
+
+        CreateLabResultItem createLabResult = new CreateLabResultItem();
+
+        try {
+            createLabResult.setRequestId(null == row.get("requestId") ? null : Long.valueOf(row.get("requestId")));
+        } catch (NumberFormatException e) {
+            createLabResult.setRequestId(null);
+        }
+
+        return createLabResult;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class LabResultDetail {
+
+    private String bloodPressure;
+    private String heartBeat;
+    private String temperature;
+    private String oxygenLevel;
+    private String comments;
+    private TestStatus result;
+    private Instant updatedOn;
+    private String tester;
+
+}
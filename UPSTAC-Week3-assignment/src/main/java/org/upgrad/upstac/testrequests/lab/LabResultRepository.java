@@ -1,9 +1,12 @@
 package org.upgrad.upstac.testrequests.lab;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.dashboard.GroupCount;
 import org.upgrad.upstac.users.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +27,11 @@ public interface LabResultRepository extends JpaRepository<LabResult,Long> {
     List<LabResult> findByTester(User user);
     Optional<LabResult> findByTesterAndRequest(User user,TestRequest testRequest);
     Optional<LabResult> findByRequest(TestRequest request);
+    List<LabResult> findByRequestIn(Collection<TestRequest> requests);
+
+    //Used to rebuild the dashboard counters
+    @Query("select new org.upgrad.upstac.testrequests.dashboard.GroupCount(l.result, count(l)) from LabResult l where l.result is not null group by l.result")
+    List<GroupCount> countByResult();
 
 
 }
@@ -10,7 +10,12 @@ import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.transaction.Transactional;
-import java.time.LocalDate;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Validated
@@ -51,17 +56,33 @@ public class LabResultService {
 
         LabResult labResult = labResultRepository.findByRequest(testRequest).orElseThrow(()-> new AppException("Invalid Request"));
 
+        return saveLabResult(applyLabResult(labResult, createLabResult));
+
+
+    }
+
+    //The lab results of several requests in a single select, keyed by request id
+    public Map<Long, LabResult> findByRequests(Collection<TestRequest> testRequests) {
+
+        if (testRequests.isEmpty())
+            return Collections.emptyMap();
+
+        return labResultRepository.findByRequestIn(testRequests)
+                .stream()
+                .collect(Collectors.toMap(labResult -> labResult.getRequest().getRequestId(), Function.identity()));
+    }
+
+    public LabResult applyLabResult(LabResult labResult, CreateLabResult createLabResult) {
+
         labResult.setBloodPressure(createLabResult.getBloodPressure());
         labResult.setComments(createLabResult.getComments());
         labResult.setHeartBeat(createLabResult.getHeartBeat());
         labResult.setOxygenLevel(createLabResult.getOxygenLevel());
         labResult.setTemperature(createLabResult.getTemperature());
         labResult.setResult(createLabResult.getResult());
-        labResult.setUpdatedOn(LocalDate.now());
-
-        return saveLabResult(labResult);
-
+        labResult.setUpdatedOn(Instant.now());
 
+        return labResult;
     }
 
 
@@ -1,16 +1,19 @@
 package org.upgrad.upstac.users;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import org.upgrad.upstac.users.models.Gender;
 import org.upgrad.upstac.users.models.AccountStatus;
 import org.upgrad.upstac.users.roles.Role;
+import org.upgrad.upstac.users.roles.UserRole;
 
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.Set;
 
 @Entity
@@ -57,6 +60,10 @@ public class User {
 
     private Integer pinCode;
 
+    //Bumped when the status or password changes, tokens issued at an older version are rejected
+    @JsonIgnore
+    private int tokenVersion;
+
     //CascadeType.PERSIST has issues with many to many which makes us not use CascadeType.ALL
     //So Using  other Cascades other than CascadeType.PERSIST
 //    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.MERGE,CascadeType.REFRESH,CascadeType.DETACH})
@@ -68,33 +75,84 @@ public class User {
     @ManyToMany(fetch = FetchType.EAGER)
     private Set<Role> roles;
 
+    private static final int UNRESOLVED_ROLES = -1;
+
+    //The roles as a mask of UserRole bits, resolved from roles on the first check and reset when they are replaced
+    //Changing the roles set in place is not seen, set a new one instead
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient int roleMask = UNRESOLVED_ROLES;
+
+
+    public void setRoles(Set<Role> roles) {
+        this.roles = roles;
+        this.roleMask = UNRESOLVED_ROLES;
+    }
+
+    //A detached copy with the same id, changes to it are only seen by others once it is saved and the cache refreshed
+    //The cached user is shared between requests, so it is copied rather than changed in place
+    public User copy() {
+
+        User copy = new User();
+        copy.setId(id);
+        copy.setUserName(userName);
+        copy.setPassword(password);
+        copy.setCreated(created);
+        copy.setDateOfBirth(dateOfBirth);
+        copy.setUpdated(updated);
+        copy.setFirstName(firstName);
+        copy.setStatus(status);
+        copy.setEmail(email);
+        copy.setLastName(lastName);
+        copy.setGender(gender);
+        copy.setPhoneNumber(phoneNumber);
+        copy.setAddress(address);
+        copy.setPinCode(pinCode);
+        copy.setTokenVersion(tokenVersion);
+        copy.setRoles(null == roles ? null : new HashSet<>(roles));
+        return copy;
+    }
+
+    //Not a getter, so it is not serialized, the user is cached and shared so resolving it twice is harmless
+    public int roleMask() {
+
+        int mask = roleMask;
+
+        if (UNRESOLVED_ROLES == mask) {
+            mask = UserRole.maskOf(roles);
+            roleMask = mask;
+        }
+
+        return mask;
+    }
+
+    public boolean hasRole(UserRole role) {
+        return (roleMask() & role.bit()) != 0;
+    }
 
     public boolean doesRoleIsDoctor() {
 
-        return doesUserHasRole("DOCTOR");
+        return hasRole(UserRole.DOCTOR);
 
 
     }
 
     public boolean doesUserHasRole(String s) {
-        return roles.stream()
-                .filter(role -> {
-                    return role.getName().equalsIgnoreCase(s);
-                })
-                .findFirst()
-                .isPresent();
+        UserRole role = UserRole.fromName(s);
+        return null != role && hasRole(role);
     }
 
     public boolean doesRoleIsUser() {
-        return doesUserHasRole("USER");
+        return hasRole(UserRole.USER);
     }
 
     public boolean doesRoleIsAuthority() {
-        return doesUserHasRole("GOVERNMENT_AUTHORITY");
+        return hasRole(UserRole.GOVERNMENT_AUTHORITY);
     }
 
     public boolean doesRoleIsTester() {
-        return doesUserHasRole("TESTER");
+        return hasRole(UserRole.TESTER);
     }
 
     public Integer getAge(){
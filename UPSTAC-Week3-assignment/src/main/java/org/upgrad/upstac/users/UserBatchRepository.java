@@ -0,0 +1,75 @@
+package org.upgrad.upstac.users;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.upgrad.upstac.users.roles.Role;
+
+import javax.transaction.Transactional;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//Inserts new users with plain JDBC batches, hibernate cannot batch inserts of entities with IDENTITY ids
+//The generated ids are read back by user name, so it does not depend on the driver returning keys for a batch
+@Repository
+public class UserBatchRepository {
+
+    static final String INSERT_USER = "insert into user (user_name, password, created, date_of_birth, updated, first_name, status, email, " +
+            "last_name, gender, phone_number, address, pin_code) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String INSERT_ROLE = "insert into user_roles (user_id, roles_id) select id, ? from user where user_name = ?";
+
+    static final String SELECT_IDS = "select id, user_name from user where user_name in (:userNames)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+
+    //Every user is inserted with its first role, returns the id of each user by user name
+    @Transactional
+    public Map<String, Long> insertAll(List<User> users) {
+
+        jdbcTemplate.batchUpdate(INSERT_USER, users, users.size(), (statement, user) -> {
+            statement.setString(1, user.getUserName());
+            statement.setString(2, user.getPassword());
+            statement.setTimestamp(3, Timestamp.valueOf(user.getCreated()));
+            statement.setDate(4, Date.valueOf(user.getDateOfBirth()));
+            statement.setTimestamp(5, Timestamp.valueOf(user.getUpdated()));
+            statement.setString(6, user.getFirstName());
+            statement.setInt(7, user.getStatus().ordinal());
+            statement.setString(8, user.getEmail());
+            statement.setString(9, user.getLastName());
+            statement.setObject(10, null == user.getGender() ? null : user.getGender().ordinal(), Types.INTEGER);
+            statement.setString(11, user.getPhoneNumber());
+            statement.setString(12, user.getAddress());
+            statement.setObject(13, user.getPinCode(), Types.INTEGER);
+        });
+
+        jdbcTemplate.batchUpdate(INSERT_ROLE, users, users.size(), (statement, user) -> {
+            Role role = user.getRoles().iterator().next();
+            statement.setLong(1, role.getId());
+            statement.setString(2, user.getUserName());
+        });
+
+        List<String> userNames = users.stream().map(User::getUserName).collect(Collectors.toList());
+        Map<String, Long> ids = new HashMap<>();
+
+        namedParameterJdbcTemplate.query(SELECT_IDS, Collections.singletonMap("userNames", userNames),
+                resultSet -> {
+                    ids.put(resultSet.getString("user_name"), resultSet.getLong("id"));
+                });
+
+        return ids;
+    }
+
+}
@@ -0,0 +1,200 @@
+package org.upgrad.upstac.users;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.BatchItemResult;
+import org.upgrad.upstac.users.credentials.PasswordHasher;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.models.RegisterRequestItem;
+import org.upgrad.upstac.users.roles.Role;
+import org.upgrad.upstac.users.roles.RoleService;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.upgrad.upstac.shared.DateParser.getDateFromString;
+import static org.upgrad.upstac.shared.StringValidator.isNotEmptyOrNull;
+
+//Bulk registration of doctors and testers by a government authority, the accounts are approved right away
+//Rows are checked for uniqueness against each other and against the users table with three queries,
+//the passwords of the valid rows are hashed in parallel and the users inserted in chunks of CHUNK_SIZE
+//Every chunk is a single transaction, a chunk that fails as a whole only fails its own rows
+@Service
+public class UserBatchService {
+
+    public static final int CHUNK_SIZE = 100;
+    public static final int MAX_ITEMS = 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserBatchRepository userBatchRepository;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    private static final Logger log = LoggerFactory.getLogger(UserBatchService.class);
+
+
+    public List<BatchItemResult> addUsers(List<RegisterRequestItem> registerRequests) {
+
+        if (registerRequests.size() > MAX_ITEMS)
+            throw new AppException("At most " + MAX_ITEMS + " users can be registered at once");
+
+        BatchItemResult[] results = new BatchItemResult[registerRequests.size()];
+        List<Integer> valid = new ArrayList<>();
+
+        Set<String> userNames = normalized(userRepository.findUserNamesIn(valuesOf(registerRequests, RegisterRequestItem::getUserName)));
+        Set<String> emails = normalized(userRepository.findEmailsIn(valuesOf(registerRequests, RegisterRequestItem::getEmail)));
+        Set<String> phoneNumbers = normalized(userRepository.findPhoneNumbersIn(valuesOf(registerRequests, RegisterRequestItem::getPhoneNumber)));
+
+        for (int i = 0; i < registerRequests.size(); i++) {
+
+            String error = validate(registerRequests.get(i), userNames, emails, phoneNumbers);
+
+            if (null == error)
+                valid.add(i);
+            else
+                results[i] = BatchItemResult.failed(null, "Row " + (i + 1) + ": " + error);
+        }
+
+        List<String> hashes = passwordHasher.encodeAll(valid.stream()
+                .map(i -> registerRequests.get(i).getPassword())
+                .collect(Collectors.toList()));
+
+        for (int from = 0; from < valid.size(); from += CHUNK_SIZE) {
+
+            int to = Math.min(from + CHUNK_SIZE, valid.size());
+            List<User> users = new ArrayList<>();
+
+            for (int i = from; i < to; i++) {
+                RegisterRequestItem registerRequest = registerRequests.get(valid.get(i));
+                Role role = roleService.findByRole(registerRequest.getRole());
+                users.add(toUser(registerRequest, role, hashes.get(i)));
+            }
+
+            List<BatchItemResult> chunkResults = insertChunk(users);
+
+            for (int i = from; i < to; i++)
+                results[valid.get(i)] = chunkResults.get(i - from);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private List<BatchItemResult> insertChunk(List<User> users) {
+
+        try {
+            Map<String, Long> ids = userBatchRepository.insertAll(users);
+            return users.stream().map(user -> BatchItemResult.succeeded(ids.get(user.getUserName()))).collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            log.error("User registration chunk of {} rows failed", users.size(), e);
+            return users.stream()
+                    .map(user -> BatchItemResult.failed(null, "Could not be saved, please resend"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    //A row is checked against all three taken sets before it adds to any of them, so a rejected row does not block a later one
+    //Values are added to the taken sets as rows are accepted, so a later row repeating them fails
+    //The sets hold lower case values, the unique keys compare case insensitively under the default mysql collation
+    private String validate(RegisterRequestItem registerRequest, Set<String> userNames, Set<String> emails, Set<String> phoneNumbers) {
+
+        if (null == registerRequest)
+            return "User is missing";
+
+        if (registerRequest.getRole() != UserRole.DOCTOR && registerRequest.getRole() != UserRole.TESTER)
+            return "Role should be DOCTOR or TESTER";
+
+        if (false == isNotEmptyOrNull(registerRequest.getUserName()) || false == isNotEmptyOrNull(registerRequest.getPassword()))
+            return "Username and password are required";
+
+        if (false == isNotEmptyOrNull(registerRequest.getEmail()) || false == isNotEmptyOrNull(registerRequest.getPhoneNumber()))
+            return "Email and phone number are required";
+
+        try {
+            getDateFromString(registerRequest.getDateOfBirth());
+        } catch (AppException e) {
+            return e.getMessage();
+        }
+
+        String userName = normalized(registerRequest.getUserName());
+        String email = normalized(registerRequest.getEmail());
+        String phoneNumber = normalized(registerRequest.getPhoneNumber());
+
+        if (userNames.contains(userName))
+            return "Username already exists " + registerRequest.getUserName();
+
+        if (emails.contains(email))
+            return "User with Same email already exists " + registerRequest.getEmail();
+
+        if (phoneNumbers.contains(phoneNumber))
+            return "User with Same Phone number already exists " + registerRequest.getPhoneNumber();
+
+        //Only a row that is accepted takes its values
+        userNames.add(userName);
+        emails.add(email);
+        phoneNumbers.add(phoneNumber);
+        return null;
+    }
+
+    private User toUser(RegisterRequestItem registerRequest, Role role, String hash) {
+
+        User newUser = new User();
+        newUser.setUserName(registerRequest.getUserName());
+        newUser.setPassword(hash);
+        newUser.setRoles(Collections.singleton(role));
+        newUser.setCreated(LocalDateTime.now());
+        newUser.setUpdated(LocalDateTime.now());
+        newUser.setFirstName(registerRequest.getFirstName());
+        newUser.setLastName(registerRequest.getLastName());
+        newUser.setEmail(registerRequest.getEmail());
+        newUser.setPhoneNumber(registerRequest.getPhoneNumber());
+        newUser.setPinCode(registerRequest.getPinCode());
+        newUser.setGender(registerRequest.getGender());
+        newUser.setAddress(registerRequest.getAddress());
+        newUser.setDateOfBirth(getDateFromString(registerRequest.getDateOfBirth()));
+        newUser.setStatus(AccountStatus.APPROVED);
+        return newUser;
+    }
+
+    private static Set<String> valuesOf(List<RegisterRequestItem> registerRequests, Function<RegisterRequestItem, String> value) {
+
+        Set<String> values = registerRequests.stream()
+                .filter(Objects::nonNull)
+                .map(value)
+                .filter(Objects::nonNull)
+                .map(UserBatchService::normalized)
+                .collect(Collectors.toSet());
+
+        //An empty in list is not valid sql on every database
+        return values.isEmpty() ? Collections.singleton("") : values;
+    }
+
+    private static Set<String> normalized(List<String> takenValues) {
+        return takenValues.stream().map(UserBatchService::normalized).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static String normalized(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+}
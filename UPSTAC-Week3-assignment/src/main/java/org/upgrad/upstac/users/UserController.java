@@ -7,16 +7,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.upgrad.upstac.config.security.UserLoggedInService;
+import org.upgrad.upstac.exception.AppException;
 import org.upgrad.upstac.exception.ForbiddenException;
+import org.upgrad.upstac.shared.BatchItemResult;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.shared.NdjsonStreamer;
 import org.upgrad.upstac.users.credentials.ChangePasswordRequest;
 import org.upgrad.upstac.users.credentials.ChangePasswordService;
 import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.models.RegisterRequestItem;
 import org.upgrad.upstac.users.models.UpdateUserDetailRequest;
 
 import javax.validation.ConstraintViolationException;
 import java.util.List;
 
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asConstraintViolation;
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asForbidden;
 
@@ -37,14 +44,43 @@ public class UserController {
     ChangePasswordService changePasswordService;
 
 
+    @Autowired
+    NdjsonStreamer ndjsonStreamer;
+
+
+    @Autowired
+    UserBatchService userBatchService;
+
+
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
 
 
     @PreAuthorize("hasRole('GOVERNMENT_AUTHORITY')")
     @GetMapping
-    public List<User> listUsers() {
+    public CursorPage<UserSummary> listUsers(@RequestParam(required = false) Long cursor, @RequestParam(required = false) Integer limit) {
 
-        return userService.findAll();
+        return userService.findAll(cursor, limit);
+    }
+
+
+    @PreAuthorize("hasRole('GOVERNMENT_AUTHORITY')")
+    @GetMapping(produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(required = false) Long cursor) {
+
+        return ndjsonStreamer.stream(cursor, next -> userService.findAll(next, CursorPage.MAX_LIMIT));
+    }
+
+
+    //Registers approved doctors and testers, returns the outcome of every row in the order they were sent
+    @PreAuthorize("hasRole('GOVERNMENT_AUTHORITY')")
+    @PostMapping(value = "/bulk")
+    public List<BatchItemResult> addUsers(@RequestBody List<RegisterRequestItem> registerRequests) {
+
+        try {
+            return userBatchService.addUsers(registerRequests);
+        } catch (AppException e) {
+            throw asBadRequest(e.getMessage());
+        }
     }
 
 
@@ -62,8 +98,6 @@ public class UserController {
 
 
         try {
-            log.info("No errors to change based on" + changePasswordRequest.getPassword());
-
             User user = userLoggedInService.getLoggedInUser();
             changePasswordService.changePassword(user, changePasswordRequest);
             return ResponseEntity.ok("Succesfully Changed");
@@ -1,9 +1,13 @@
 package org.upgrad.upstac.users;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.upgrad.upstac.users.models.AccountStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +21,20 @@ public interface UserRepository extends CrudRepository<User, Long> {
     List<User> findAll();
     List<User> findByStatus(AccountStatus status);
 
+    @Query("select new org.upgrad.upstac.users.UserSummary(u.id, u.userName, u.firstName, u.lastName, u.email, u.phoneNumber, u.pinCode, u.gender, u.status, u.created, r.name) " +
+            "from User u left join u.roles r where u.id > :cursor order by u.id")
+    List<UserSummary> findSummaries(@Param("cursor") Long cursor, Pageable pageable);
+
+    //Set based uniqueness checks for bulk registrations, each returns the values that are already taken
+    @Query("select u.userName from User u where u.userName in :userNames")
+    List<String> findUserNamesIn(@Param("userNames") Collection<String> userNames);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findEmailsIn(@Param("emails") Collection<String> emails);
+
+    @Query("select u.phoneNumber from User u where u.phoneNumber in :phoneNumbers")
+    List<String> findPhoneNumbersIn(@Param("phoneNumbers") Collection<String> phoneNumbers);
+
     void deleteById(Long id);
 
     Optional<User> findById(Long id);
@@ -3,14 +3,19 @@ package org.upgrad.upstac.users;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.auth.register.RegisterRequest;
+import org.upgrad.upstac.config.cache.CacheConfig;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.shared.logging.LogCategory;
+import org.upgrad.upstac.shared.logging.LogSampler;
 import org.upgrad.upstac.users.models.AccountStatus;
 import org.upgrad.upstac.users.models.UpdateUserDetailRequest;
 import org.upgrad.upstac.users.roles.Role;
@@ -23,6 +28,9 @@ import javax.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 import java.util.*;
 
+import static org.upgrad.upstac.shared.CursorPage.firstPageOf;
+import static org.upgrad.upstac.shared.CursorPage.limitOf;
+import static org.upgrad.upstac.shared.CursorPage.startOf;
 import static org.upgrad.upstac.shared.DateParser.getDateFromString;
 import static org.upgrad.upstac.shared.StringValidator.isNotEmptyOrNull;
 
@@ -38,13 +46,17 @@ public class UserService {
     RoleService roleService;
 
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private LogSampler logSampler;
 
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
 
 
-    @Cacheable("user")
+    //Null results are not cached, so a username can be registered right after a failed lookup
+    @Cacheable(value = CacheConfig.USER_CACHE, unless = "#result == null")
     public User findByUserName(String userName) {
 
         return userRepository.findByUserName(userName);
@@ -57,12 +69,6 @@ public class UserService {
 
     }
 
-    public boolean isApprovedUser(String userName) {
-
-        return userRepository.findByUserName(userName).getStatus() == AccountStatus.APPROVED;
-
-    }
-
     public void validateUserWithSameDataExists(RegisterRequest user) {
 
         if((null != findByUserName(user.getUserName())))
@@ -78,10 +84,10 @@ public class UserService {
     }
 
 
-    public List<User> findAll() {
-        List<User> list = new ArrayList<>();
-        userRepository.findAll().iterator().forEachRemaining(list::add);
-        return list;
+    public CursorPage<UserSummary> findAll(Long cursor, Integer limit) {
+        int pageSize = limitOf(limit);
+        List<UserSummary> users = userRepository.findSummaries(startOf(cursor), firstPageOf(pageSize));
+        return CursorPage.of(users, pageSize, UserSummary::getId);
     }
 
 
@@ -143,7 +149,7 @@ public class UserService {
 
     }
 
-    @CachePut(value = "user")
+    @CacheEvict(value = CacheConfig.USER_CACHE, key = "#result.userName")
     public User updateApprovalStatus(Long userId,AccountStatus status) {
         User user = userRepository.findById(userId).orElseThrow(() -> new AppException("Invalid User ID"));
 
@@ -151,12 +157,18 @@ public class UserService {
 
     }
 
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.USER_CACHE, key = "#user.userName", beforeInvocation = true),
+            @CacheEvict(value = CacheConfig.USER_CACHE, key = "#user.userName")
+    })
     public User updateStatusAndSave(User user, @NotNull AccountStatus status) {
-        user.setStatus(status);
-        return saveInDatabase(user);
+        User updated = user.copy();
+        updated.setStatus(status);
+        revokeTokensOf(updated);
+        return saveInDatabase(updated);
     }
 
-    @CachePut(value = "user")
+    //Not cached here, the user is loaded into the cache on its next lookup by user name
     public User saveInDatabase(User newUser) {
         try{
             return userRepository.save(newUser);
@@ -170,31 +182,73 @@ public class UserService {
 
     }
 
+    //The passed in user is usually the cached instance, shared with other requests, so the changes are made to a copy
+    //The user is evicted before and again after the save, a lookup racing the save may have cached the old row in between
+    //The save commits on its own, no caller runs these in a transaction, so the second evict comes after the commit
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.USER_CACHE, key = "#user.userName", beforeInvocation = true),
+            @CacheEvict(value = CacheConfig.USER_CACHE, key = "#user.userName")
+    })
     public User updateUserDetails(User user, UpdateUserDetailRequest updateUserDetailRequest) {
 
-
+        User updated = user.copy();
 
         if(isNotEmptyOrNull(updateUserDetailRequest.getFirstName()))
-            user.setFirstName(updateUserDetailRequest.getFirstName());
+            updated.setFirstName(updateUserDetailRequest.getFirstName());
 
         if(isNotEmptyOrNull(updateUserDetailRequest.getLastName()))
-            user.setLastName(updateUserDetailRequest.getLastName());
+            updated.setLastName(updateUserDetailRequest.getLastName());
 
         if(isNotEmptyOrNull(updateUserDetailRequest.getEmail()))
-            user.setEmail(updateUserDetailRequest.getEmail());
+            updated.setEmail(updateUserDetailRequest.getEmail());
 
         if(isNotEmptyOrNull(updateUserDetailRequest.getPhoneNumber()))
-            user.setPhoneNumber(updateUserDetailRequest.getPhoneNumber());
+            updated.setPhoneNumber(updateUserDetailRequest.getPhoneNumber());
 
 
-        User savedUser = saveInDatabase(user);
-        log.info("updateUserDetails" + savedUser.toString());
+        User savedUser = saveInDatabase(updated);
+        if (log.isInfoEnabled() && logSampler.sample(LogCategory.USERS))
+            log.info("updateUserDetails userId={}", savedUser.getId());
         return savedUser;
 
 
     }
 
 
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.USER_CACHE, key = "#user.userName", beforeInvocation = true),
+            @CacheEvict(value = CacheConfig.USER_CACHE, key = "#user.userName")
+    })
+    public User updatePassword(User user, String password) {
+        User updated = user.copy();
+        updated.setPassword(toEncrypted(password));
+        revokeTokensOf(updated);
+        return saveInDatabase(updated);
+    }
+
+    public boolean needsRehash(User user) {
+        return passwordEncoder.upgradeEncoding(user.getPassword());
+    }
+
+    //Stores the hash rewritten with the configured algorithm and cost, once the password is known to be right
+    //The password itself did not change, so the tokens already issued stay valid
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.USER_CACHE, key = "#user.userName", beforeInvocation = true),
+            @CacheEvict(value = CacheConfig.USER_CACHE, key = "#user.userName")
+    })
+    public User rehashPassword(User user, String encryptedPassword) {
+        User updated = user.copy();
+        updated.setPassword(encryptedPassword);
+        return saveInDatabase(updated);
+    }
+
+
+    //The version is stored with the user, so every instance rejects the older tokens, also after a restart
+    private void revokeTokensOf(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+    }
+
+
     public Set<Role> getRoleFor(UserRole userRole) {
         return getRolesForUser(roleService.findByRole(userRole));
     }
@@ -209,7 +263,7 @@ public class UserService {
 
     public String toEncrypted(String password) {
 
-        return bCryptPasswordEncoder.encode(password);
+        return passwordEncoder.encode(password);
     }
 
     public User findByEmail(String email) {
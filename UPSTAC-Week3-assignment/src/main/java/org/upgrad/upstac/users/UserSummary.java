@@ -0,0 +1,27 @@
+package org.upgrad.upstac.users;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.time.LocalDateTime;
+
+//Read only view of a user for listings, every user is registered with a single role
+@Getter
+@AllArgsConstructor
+public class UserSummary {
+
+    private Long id;
+    private String userName;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phoneNumber;
+    private Integer pinCode;
+    private Gender gender;
+    private AccountStatus status;
+    private LocalDateTime created;
+    private String role;
+
+}
@@ -0,0 +1,126 @@
+package org.upgrad.upstac.users.credentials;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Writes hashes as {algorithm@cost}hash with the configured algorithm and cost, and checks hashes written with any other
+//The cost is kept in the prefix because pbkdf2 hashes do not carry their iterations
+//Hashes without a prefix were written by the plain BCryptPasswordEncoder used before
+//A hash is rewritten when written with another algorithm, or with a cost outside the band from the floor to the ceiling
+//of the configured cost, so lowering the cost to take more logins per core also lowers it for the hashes already stored
+//Instances calibrated a step apart, or restarted, stay within the band and do not keep rewriting each other's hashes
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+
+    private static final String PREFIX = "{";
+    private static final String SUFFIX = "}";
+    private static final String SEPARATOR = "@";
+
+    private final HashAlgorithm algorithm;
+
+    private final int floorCost;
+
+    private final int ceilingCost;
+
+    private final String idForEncode;
+
+    private final PasswordEncoder encoder;
+
+    private final PasswordEncoder legacyEncoder = new BCryptPasswordEncoder();
+
+    //Only the algorithm and cost pairs found in stored hashes end up here
+    private final Map<String, PasswordEncoder> encoders = new ConcurrentHashMap<>();
+
+
+    public AdaptivePasswordEncoder(HashAlgorithm algorithm, int cost) {
+        this.algorithm = algorithm;
+        this.floorCost = algorithm.floor(cost);
+        this.ceilingCost = algorithm.ceiling(cost);
+        this.idForEncode = algorithm.getId() + SEPARATOR + algorithm.checkCost(cost);
+        this.encoder = algorithm.create(cost);
+        encoders.put(idForEncode, encoder);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return PREFIX + idForEncode + SUFFIX + encoder.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+
+        if (null == encodedPassword)
+            return false;
+
+        String id = idOf(encodedPassword);
+
+        if (null == id)
+            return legacyEncoder.matches(rawPassword, encodedPassword);
+
+        return encoderFor(id)
+                .map(delegate -> delegate.matches(rawPassword, encodedPassword.substring(id.length() + PREFIX.length() + SUFFIX.length())))
+                .orElse(false);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+
+        if (null == encodedPassword)
+            return false;
+
+        String id = idOf(encodedPassword);
+        if (null == id)
+            return true;
+
+        int separator = id.indexOf(SEPARATOR);
+        if (separator < 0 || false == algorithm.getId().equals(id.substring(0, separator)))
+            return true;
+
+        try {
+            int storedCost = Integer.parseInt(id.substring(separator + SEPARATOR.length()));
+            return storedCost < floorCost || storedCost > ceilingCost;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public String getIdForEncode() {
+        return idForEncode;
+    }
+
+
+    private static String idOf(String encodedPassword) {
+
+        if (false == encodedPassword.startsWith(PREFIX))
+            return null;
+
+        int end = encodedPassword.indexOf(SUFFIX);
+        return end < 0 ? null : encodedPassword.substring(PREFIX.length(), end);
+    }
+
+    //An unknown algorithm or a cost out of range never matches
+    private Optional<PasswordEncoder> encoderFor(String id) {
+
+        PasswordEncoder known = encoders.get(id);
+        if (null != known)
+            return Optional.of(known);
+
+        int separator = id.indexOf(SEPARATOR);
+        if (separator < 0)
+            return Optional.empty();
+
+        Optional<HashAlgorithm> algorithm = HashAlgorithm.fromId(id.substring(0, separator));
+        if (false == algorithm.isPresent())
+            return Optional.empty();
+
+        try {
+            int cost = algorithm.get().checkCost(Integer.parseInt(id.substring(separator + SEPARATOR.length())));
+            return Optional.of(encoders.computeIfAbsent(id, key -> algorithm.get().create(cost)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
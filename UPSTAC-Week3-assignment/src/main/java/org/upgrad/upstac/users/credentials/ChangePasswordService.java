@@ -6,12 +6,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.exception.ForbiddenException;
 import org.upgrad.upstac.users.User;
-import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.UserService;
 
 import javax.validation.Valid;
 
@@ -23,18 +22,15 @@ public class ChangePasswordService {
 
     private AuthenticationManager authenticationManager;
 
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private UserService userService;
 
 
     @Autowired
-    public ChangePasswordService(AuthenticationManager authenticationManager, BCryptPasswordEncoder bCryptPasswordEncoder, UserRepository userRepository) {
+    public ChangePasswordService(AuthenticationManager authenticationManager, UserService userService) {
         this.authenticationManager = authenticationManager;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
-        this.userRepository = userRepository;
+        this.userService = userService;
     }
 
-    private UserRepository userRepository;
-
 
     private static final Logger log = LoggerFactory.getLogger(ChangePasswordService.class);
 
@@ -50,8 +46,7 @@ public class ChangePasswordService {
             );
 
             String changedPassword = changePasswordRequest.getPassword();
-            user.setPassword(bCryptPasswordEncoder.encode(changedPassword));
-            userRepository.save(user);
+            userService.updatePassword(user, changedPassword);
 
         } catch (Exception e) {
             throw new ForbiddenException(e.getMessage());
@@ -0,0 +1,173 @@
+package org.upgrad.upstac.users.credentials;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//The algorithms passwords can be hashed with, each with the one cost parameter that scales its work
+//A configured cost may go down to the minimum, calibration never goes below the spring security default
+public enum HashAlgorithm {
+
+    //Cost is the log2 of the rounds, doubling the work per step
+    BCRYPT("bcrypt", 4, 10, 31, 8) {
+        @Override
+        public PasswordEncoder create(int cost) {
+            return new BCryptPasswordEncoder(cost);
+        }
+
+        @Override
+        int scale(double ratio) {
+            return getCalibrationCost() + (int) Math.round(Math.log(ratio) / Math.log(2));
+        }
+
+        @Override
+        int floor(int cost) {
+            return Math.max(getMinCost(), cost - 1);
+        }
+
+        @Override
+        int ceiling(int cost) {
+            return Math.min(getMaxCost(), cost + 1);
+        }
+    },
+
+    //Cost is the number of iterations, the work grows linearly with it
+    PBKDF2("pbkdf2", 1000, 185000, 10000000, 10000) {
+        @Override
+        public PasswordEncoder create(int cost) {
+            Pbkdf2PasswordEncoder encoder = new Pbkdf2PasswordEncoder("", cost, 256);
+            encoder.setAlgorithm(Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+            return encoder;
+        }
+
+        @Override
+        int scale(double ratio) {
+            return (int) Math.min(getMaxCost(), Math.round(getCalibrationCost() * ratio / 1000) * 1000);
+        }
+
+        @Override
+        int floor(int cost) {
+            return Math.max(getMinCost(), cost / 2);
+        }
+
+        @Override
+        int ceiling(int cost) {
+            return (int) Math.min(getMaxCost(), cost * 2L);
+        }
+    },
+
+    //Cost is the number of passes over a fixed 4 MB of memory, the work grows linearly with it
+    ARGON2("argon2", 1, 3, 100, 1) {
+        @Override
+        public PasswordEncoder create(int cost) {
+            return new Argon2PasswordEncoder(16, 32, 1, ARGON2_MEMORY_KB, cost);
+        }
+
+        @Override
+        int scale(double ratio) {
+            return (int) Math.min(getMaxCost(), Math.round(getCalibrationCost() * ratio));
+        }
+
+        @Override
+        int floor(int cost) {
+            return Math.max(getMinCost(), cost / 2);
+        }
+
+        @Override
+        int ceiling(int cost) {
+            return (int) Math.min(getMaxCost(), cost * 2L);
+        }
+    };
+
+    private static final int ARGON2_MEMORY_KB = 1 << 12;
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private static final int CALIBRATION_RUNS = 3;
+
+    private final String id;
+    private final int minCost;
+    private final int defaultCost;
+    private final int maxCost;
+    private final int calibrationCost;
+
+    HashAlgorithm(String id, int minCost, int defaultCost, int maxCost, int calibrationCost) {
+        this.id = id;
+        this.minCost = minCost;
+        this.defaultCost = defaultCost;
+        this.maxCost = maxCost;
+        this.calibrationCost = calibrationCost;
+    }
+
+    public abstract PasswordEncoder create(int cost);
+
+    //The cost that does ratio times the work of the calibration cost
+    abstract int scale(double ratio);
+
+    //The lowest stored cost still good enough for cost, about half its work
+    //Calibration lands a step either side of a boundary from one start to the next, hashes within the band are kept
+    abstract int floor(int cost);
+
+    //The highest stored cost kept for cost, about twice its work, a costlier hash is rewritten so a lower cost frees the cores
+    abstract int ceiling(int cost);
+
+
+    public static Optional<HashAlgorithm> fromId(String id) {
+        return Arrays.stream(values()).filter(algorithm -> algorithm.id.equalsIgnoreCase(id)).findFirst();
+    }
+
+    public int checkCost(int cost) {
+
+        if (cost < minCost || cost > maxCost)
+            throw new IllegalArgumentException("Cost of " + id + " should be between " + minCost + " and " + maxCost);
+
+        return cost;
+    }
+
+    //Times a password check at the cheap calibration cost, then scales the cost so a check takes about the target time
+    //The fastest of a few runs is used, the first check only warms up the code
+    public int calibrate(long targetMillis) {
+
+        PasswordEncoder probe = create(calibrationCost);
+        String hash = probe.encode(CALIBRATION_PASSWORD);
+        probe.matches(CALIBRATION_PASSWORD, hash);
+
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            probe.matches(CALIBRATION_PASSWORD, hash);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+
+        return costFor(TimeUnit.MILLISECONDS.toNanos(targetMillis) / (double) Math.max(fastest, 1));
+    }
+
+    int costFor(double ratio) {
+        return ratio <= 0 ? defaultCost : Math.max(defaultCost, Math.min(maxCost, scale(ratio)));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getMinCost() {
+        return minCost;
+    }
+
+    public int getMaxCost() {
+        return maxCost;
+    }
+
+    public int getDefaultCost() {
+        return defaultCost;
+    }
+
+    int getCalibrationCost() {
+        return calibrationCost;
+    }
+}
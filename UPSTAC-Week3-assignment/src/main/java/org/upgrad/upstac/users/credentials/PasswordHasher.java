@@ -0,0 +1,61 @@
+package org.upgrad.upstac.users.credentials;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+//Hashes passwords on the shared hashing pool, a hash costs tens of milliseconds of cpu so more threads than the pool would not help
+//At most one hash per pool thread is queued at a time, so a bulk registration leaves room in the queue for logins
+@Component
+public class PasswordHasher {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PasswordHashingPool passwordHashingPool;
+
+
+    //The hashes are in the order of the passwords
+    public List<String> encodeAll(List<String> passwords) {
+
+        Semaphore inFlight = new Semaphore(passwordHashingPool.getPoolSize());
+        List<Future<String>> hashes = new ArrayList<>(passwords.size());
+
+        for (String password : passwords) {
+            inFlight.acquireUninterruptibly();
+            hashes.add(passwordHashingPool.submitWhenRoom(() -> {
+                try {
+                    return passwordEncoder.encode(password);
+                } finally {
+                    inFlight.release();
+                }
+            }));
+        }
+
+        List<String> result = new ArrayList<>(hashes.size());
+        for (Future<String> hash : hashes)
+            result.add(get(hash));
+
+        return result;
+    }
+
+
+    private static String get(Future<String> hash) {
+        try {
+            return hash.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing interrupted", e);
+        }
+    }
+
+}
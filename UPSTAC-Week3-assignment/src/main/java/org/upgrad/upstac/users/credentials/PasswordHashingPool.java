@@ -0,0 +1,92 @@
+package org.upgrad.upstac.users.credentials;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+//The one pool every password hash runs on, logins and bulk registrations alike, so together they never take more than its threads
+//Half the cores by default, the other half stays free for the lab and consultation apis
+//The queue is bounded, a login that finds it full is turned away and a bulk registration waits for room
+@Component
+public class PasswordHashingPool {
+
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    //0 uses half the available processors, at least one
+    @Value("${security.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${security.password-hashing.queue-size:100}")
+    private int queueSize;
+
+    private ThreadPoolExecutor executor;
+
+
+    @PostConstruct
+    public void start() {
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger count = new AtomicInteger();
+
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+
+    //Throws RejectedExecutionException when the queue is full
+    public <T> Future<T> submit(Callable<T> hashing) {
+        return executor.submit(hashing);
+    }
+
+    //Waits for room in the queue instead, for work no client is waiting on with a timeout
+    public <T> Future<T> submitWhenRoom(Callable<T> hashing) {
+
+        while (true) {
+            try {
+                return executor.submit(hashing);
+            } catch (RejectedExecutionException e) {
+                if (executor.isShutdown())
+                    throw e;
+                LockSupport.parkNanos(RETRY_NANOS);
+            }
+        }
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueSize;
+    }
+
+}
@@ -0,0 +1,15 @@
+package org.upgrad.upstac.users.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.upgrad.upstac.auth.register.RegisterRequest;
+import org.upgrad.upstac.users.roles.UserRole;
+
+//A row of a bulk registration, the role is DOCTOR or TESTER
+@Getter
+@Setter
+public class RegisterRequestItem extends RegisterRequest {
+
+    private UserRole role;
+
+}
@@ -3,7 +3,12 @@ package org.upgrad.upstac.users.roles;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 
 @Service
@@ -13,26 +18,53 @@ public class RoleService {
     @Autowired
 	private RoleRepository roleRepository;
 
+    //The roles are a few rows that only change through saveRoleFor, so they are loaded once and read from memory
+    //The map is replaced as a whole on a change, readers never see it half built
+    private volatile Map<UserRole, Role> roles = Collections.emptyMap();
 
 
+    //Runs after the migrations, on a new database the table is still empty until the roles are saved
+    @PostConstruct
+    public void refresh() {
+
+        Map<UserRole, Role> loaded = new EnumMap<>(UserRole.class);
+
+        for (Role role : roleRepository.findAll()) {
+            UserRole userRole = UserRole.fromName(role.getName());
+            if (null != userRole)
+                loaded.put(userRole, role);
+        }
+
+        roles = Collections.unmodifiableMap(loaded);
+    }
+
     public void saveRoleFor(UserRole userRole) {
         Role role = new Role();
         role.setName(userRole.name());
         roleRepository.save(role);
+        refresh();
     }
 
 
     public List<Role> findAll() {
-        return roleRepository.findAll();
+        return new ArrayList<>(roles.values());
     }
 
+    //A role missing from memory can only have been added outside of the app, it is picked up by loading them again
     public Role findByRole(UserRole userRole) {
 
-       return roleRepository.findByName(userRole.name());
+        Role role = roles.get(userRole);
+
+        if (null == role) {
+            refresh();
+            role = roles.get(userRole);
+        }
+
+        return role;
     }
 
     public boolean shouldInitialize() {
-		return roleRepository.findAll().size() <=0;
+		return roleRepository.count() == 0;
 	}
 
     public Role getForUser() {
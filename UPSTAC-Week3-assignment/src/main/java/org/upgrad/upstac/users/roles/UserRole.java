@@ -1,5 +1,38 @@
 package org.upgrad.upstac.users.roles;
 
 public enum UserRole {
-    USER, TESTER, DOCTOR,GOVERNMENT_AUTHORITY
+    USER, TESTER, DOCTOR,GOVERNMENT_AUTHORITY;
+
+    private static final UserRole[] VALUES = values();
+
+    //The bit of the role in a mask of roles, see User.hasRole
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    //Role names are matched ignoring case, null when there is no role of that name
+    public static UserRole fromName(String name) {
+
+        for (UserRole role : VALUES)
+            if (role.name().equalsIgnoreCase(name))
+                return role;
+
+        return null;
+    }
+
+    public static int maskOf(Iterable<Role> roles) {
+
+        int mask = 0;
+
+        if (null == roles)
+            return mask;
+
+        for (Role role : roles) {
+            UserRole userRole = fromName(role.getName());
+            if (null != userRole)
+                mask |= userRole.bit();
+        }
+
+        return mask;
+    }
 }
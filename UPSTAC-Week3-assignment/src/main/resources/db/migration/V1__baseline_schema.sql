@@ -0,0 +1,97 @@
+-- The schema as hibernate generated it with ddl-auto=update
+-- Databases created before the migrations were introduced are baselined at this version and skip it
+
+create table role (
+    id bigint not null auto_increment,
+    name varchar(255),
+    description varchar(255),
+    primary key (id),
+    constraint uk_role_name unique (name)
+);
+
+create table user (
+    id bigint not null auto_increment,
+    user_name varchar(255),
+    password varchar(255),
+    created datetime,
+    date_of_birth date,
+    updated datetime,
+    first_name varchar(255),
+    status integer,
+    email varchar(255),
+    last_name varchar(255),
+    gender integer,
+    phone_number varchar(255),
+    address varchar(255),
+    pin_code integer,
+    primary key (id),
+    constraint uk_user_user_name unique (user_name),
+    constraint uk_user_email unique (email),
+    constraint uk_user_phone_number unique (phone_number)
+);
+
+create table user_roles (
+    user_id bigint not null,
+    roles_id bigint not null,
+    primary key (user_id, roles_id),
+    constraint fk_user_roles_user foreign key (user_id) references user (id),
+    constraint fk_user_roles_role foreign key (roles_id) references role (id)
+);
+
+create table test_request (
+    request_id bigint not null auto_increment,
+    created_by_id bigint,
+    created date,
+    status integer,
+    name varchar(255),
+    gender integer,
+    address varchar(255),
+    age integer,
+    email varchar(255),
+    phone_number varchar(255),
+    pin_code integer,
+    primary key (request_id),
+    constraint fk_test_request_created_by foreign key (created_by_id) references user (id)
+);
+
+create table lab_result (
+    result_id bigint not null auto_increment,
+    request_id bigint,
+    blood_pressure varchar(255),
+    heart_beat varchar(255),
+    temperature varchar(255),
+    oxygen_level varchar(255),
+    comments varchar(255),
+    result integer,
+    updated_on date,
+    tester_id bigint,
+    primary key (result_id),
+    constraint uk_lab_result_request unique (request_id),
+    constraint fk_lab_result_request foreign key (request_id) references test_request (request_id),
+    constraint fk_lab_result_tester foreign key (tester_id) references user (id)
+);
+
+create table consultation (
+    id bigint not null auto_increment,
+    request_id bigint,
+    suggestion integer,
+    comments varchar(255),
+    updated_on date,
+    doctor_id bigint,
+    primary key (id),
+    constraint uk_consultation_request unique (request_id),
+    constraint fk_consultation_request foreign key (request_id) references test_request (request_id),
+    constraint fk_consultation_doctor foreign key (doctor_id) references user (id)
+);
+
+create table test_request_flow (
+    id bigint not null auto_increment,
+    request_id bigint,
+    from_status integer,
+    to_status integer,
+    changed_by_id bigint,
+    happened_on date,
+    primary key (id),
+    constraint fk_test_request_flow_request foreign key (request_id) references test_request (request_id),
+    constraint fk_test_request_flow_changed_by foreign key (changed_by_id) references user (id)
+);
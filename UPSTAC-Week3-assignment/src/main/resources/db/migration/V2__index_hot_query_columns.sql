@@ -0,0 +1,11 @@
+-- Every listing pages on the request id after filtering, so the request id trails each filter column
+create index idx_test_request_status on test_request (status, request_id);
+create index idx_test_request_created_by on test_request (created_by_id, request_id);
+
+-- Looked up on every new request to find the earlier requests of the same person
+create index idx_test_request_email on test_request (email);
+create index idx_test_request_phone_number on test_request (phone_number);
+
+create index idx_lab_result_tester on lab_result (tester_id, request_id);
+create index idx_consultation_doctor on consultation (doctor_id, request_id);
+create index idx_test_request_flow_request on test_request_flow (request_id, id);
@@ -0,0 +1,23 @@
+-- Set to the email and phone number while a request is not completed, null afterwards
+-- Unique keys allow any number of nulls, so they only guard the requests in progress
+alter table test_request add column active_email varchar(255);
+alter table test_request add column active_phone_number varchar(255);
+
+-- Status 4 is COMPLETED, only the latest request in progress per email and phone number gets the key
+-- The extra derived table lets mysql select from the table being updated
+update test_request set active_email = email
+where status <> 4 and request_id in (
+    select request_id from (
+        select max(request_id) as request_id from test_request where status <> 4 and email is not null group by email
+    ) latest
+);
+
+update test_request set active_phone_number = phone_number
+where status <> 4 and request_id in (
+    select request_id from (
+        select max(request_id) as request_id from test_request where status <> 4 and phone_number is not null group by phone_number
+    ) latest
+);
+
+create unique index uk_test_request_active_email on test_request (active_email);
+create unique index uk_test_request_active_phone_number on test_request (active_phone_number);
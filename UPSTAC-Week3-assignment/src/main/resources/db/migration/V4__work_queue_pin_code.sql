@@ -0,0 +1,2 @@
+-- Work queue claims of a pin code take the oldest requests of that pin code in a given status
+create index idx_test_request_status_pin_code on test_request (status, pin_code, request_id);
@@ -0,0 +1,10 @@
+-- Dates only had day precision, which hides the turnaround within a day
+-- Existing rows keep their day, at midnight
+alter table test_request modify column created datetime(6);
+alter table lab_result modify column updated_on datetime(6);
+alter table consultation modify column updated_on datetime(6);
+alter table test_request_flow modify column happened_on datetime(6);
+
+-- Flow lookups by time window, on their own or for a single status
+create index idx_test_request_flow_happened_on on test_request_flow (happened_on);
+create index idx_test_request_flow_to_status on test_request_flow (to_status, happened_on);
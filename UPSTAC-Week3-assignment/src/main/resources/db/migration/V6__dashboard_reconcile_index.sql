@@ -0,0 +1,2 @@
+-- The dashboard rebuild counts the requests of the last days per pin code
+create index idx_test_request_created on test_request (created, pin_code);
@@ -0,0 +1,2 @@
+-- Tokens carry the version they were issued at, changing the status or password bumps it and rejects the older tokens
+alter table user add column token_version integer default 0 not null;
@@ -0,0 +1,146 @@
+package org.upgrad.upstac.auth.throttle;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.users.credentials.PasswordHashingPool;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    LoginThrottle loginThrottle = new LoginThrottle();
+
+    PasswordHashingPool passwordHashingPool = new PasswordHashingPool();
+
+
+    @BeforeEach
+    public void startWithOneThreadAndRoomForOneWaitingCheck() {
+
+        ReflectionTestUtils.setField(passwordHashingPool, "threads", 1);
+        ReflectionTestUtils.setField(passwordHashingPool, "queueSize", 1);
+        passwordHashingPool.start();
+        ReflectionTestUtils.setField(loginThrottle, "passwordHashingPool", passwordHashingPool);
+        ReflectionTestUtils.setField(loginThrottle, "timeoutMillis", 5000L);
+        ReflectionTestUtils.setField(loginThrottle, "userCapacity", 2L);
+        ReflectionTestUtils.setField(loginThrottle, "userRefillPerMinute", 1L);
+        ReflectionTestUtils.setField(loginThrottle, "ipCapacity", 100L);
+        ReflectionTestUtils.setField(loginThrottle, "ipRefillPerMinute", 100L);
+        ReflectionTestUtils.setField(loginThrottle, "maxTrackedKeys", 1000L);
+        loginThrottle.start();
+    }
+
+    @AfterEach
+    public void stop() {
+        passwordHashingPool.stop();
+    }
+
+
+    @Test
+    public void when_user_over_rate_expect_login_rejected_before_password_check() {
+
+        //Arrange
+        loginThrottle.check("someuser", "10.0.0.1", () -> true);
+        loginThrottle.check("SomeUser", "10.0.0.2", () -> true);
+
+        //Act & Assert
+        assertThrows(LoginThrottledException.class, () -> loginThrottle.check("someuser", "10.0.0.3", () -> fail("Password checked")));
+        assertTrue(loginThrottle.check("otheruser", "10.0.0.1", () -> true));
+        assertEquals(1, loginThrottle.getStats().getRateLimited());
+    }
+
+
+    @Test
+    public void when_pool_and_queue_full_expect_login_rejected_at_once() throws Exception {
+
+        //Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> loginThrottle.check("user1", "10.0.0.1", () -> await(release)));
+        waitFor(() -> loginThrottle.getStats().getActiveChecks() == 1);
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> loginThrottle.check("user2", "10.0.0.1", () -> true));
+        waitFor(() -> loginThrottle.getStats().getQueueDepth() == 1);
+
+        //Act
+        assertThrows(LoginThrottledException.class, () -> loginThrottle.check("user3", "10.0.0.1", () -> true));
+        release.countDown();
+
+        //Assert
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loginThrottle.getStats().getRejected());
+    }
+
+
+    @Test
+    public void when_check_still_queued_at_timeout_expect_it_dropped_and_started_check_awaited() throws Exception {
+
+        //Arrange
+        ReflectionTestUtils.setField(loginThrottle, "timeoutMillis", 100L);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> loginThrottle.check("user1", "10.0.0.1", () -> {
+            await(release);
+            return true;
+        }));
+        waitFor(() -> loginThrottle.getStats().getActiveChecks() == 1);
+
+        //Act
+        assertThrows(LoginThrottledException.class, () -> loginThrottle.check("user2", "10.0.0.1", () -> fail("Dropped check run")));
+        release.countDown();
+
+        //Assert
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loginThrottle.getStats().getTimedOut());
+    }
+
+
+    @Test
+    public void when_password_check_fails_expect_its_exception_thrown() {
+
+        IllegalStateException result = assertThrows(IllegalStateException.class, () -> loginThrottle.check("someuser", "10.0.0.1", () -> {
+            throw new IllegalStateException("Bad credentials");
+        }));
+
+        assertEquals("Bad credentials", result.getMessage());
+    }
+
+
+    @Test
+    public void when_bucket_empty_expect_tokens_refilled_over_time() {
+
+        //Arrange
+        AtomicLong now = new AtomicLong();
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 60, 10, now::get);
+
+        //Act & Assert
+        assertTrue(rateLimiter.tryAcquire("someuser"));
+        assertFalse(rateLimiter.tryAcquire("someuser"));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertFalse(rateLimiter.tryAcquire("someuser"));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertTrue(rateLimiter.tryAcquire("someuser"));
+    }
+
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (false == condition.getAsBoolean() && System.nanoTime() < deadline)
+            Thread.sleep(5);
+        assertTrue(condition.getAsBoolean());
+    }
+}
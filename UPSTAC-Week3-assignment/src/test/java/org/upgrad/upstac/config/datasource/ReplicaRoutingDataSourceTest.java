@@ -0,0 +1,86 @@
+package org.upgrad.upstac.config.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    DataSource primary;
+
+    @Mock
+    DataSource replica;
+
+    @Mock
+    Connection primaryConnection;
+
+    @Mock
+    Connection replicaConnection;
+
+    ReplicaRoutingDataSource routingDataSource;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica);
+    }
+
+    @AfterEach
+    public void tearDown() {
+
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+
+    @Test
+    public void when_connection_taken_in_a_read_expect_replica_otherwise_primary() throws SQLException {
+
+        //Arrange
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+        Mockito.when(replica.getConnection()).thenReturn(replicaConnection);
+
+        //Act & Assert
+        assertSame(replicaConnection, ReplicaRoutingDataSource.read(this::connection));
+        assertSame(primaryConnection, connection());
+    }
+
+
+    @Test
+    public void when_read_joins_a_read_write_transaction_expect_primary() throws SQLException {
+
+        //Arrange
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+        Mockito.when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        //Act & Assert
+        assertSame(primaryConnection, ReplicaRoutingDataSource.read(this::connection));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, ReplicaRoutingDataSource.read(this::connection));
+    }
+
+
+    private Connection connection() {
+        try {
+            return routingDataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.upgrad.upstac.config.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.LocalManagementPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.upgrad.upstac.auth.models.LoginRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Starts the app on random ports and scrapes the management port the way prometheus would
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        "spring.datasource.url=jdbc:h2:mem:metrics-scrape-test;DB_CLOSE_DELAY=-1"
+})
+class MetricsScrapeTest {
+
+    @LocalServerPort
+    int port;
+
+    @LocalManagementPort
+    int managementPort;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+
+    @Test
+    public void when_scraped_after_a_login_expect_request_database_pool_and_hibernate_metrics() {
+
+        //Arrange
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setUserName("nobody");
+        loginRequest.setPassword("password");
+        restTemplate.postForEntity("http://localhost:" + port + "/auth/login", loginRequest, String.class);
+
+        //Act
+        ResponseEntity<String> result = restTemplate.getForEntity("http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+
+        //Assert
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        String metrics = result.getBody();
+        assertContains(metrics, "http_server_requests_seconds_bucket{");
+        assertContains(metrics, "handler=\"AuthController.login\"");
+        assertContains(metrics, "db_statements_per_request_count{handler=\"AuthController.login\"");
+        assertContains(metrics, "db_statement_time_per_request_seconds_count{handler=\"AuthController.login\"");
+        assertContains(metrics, "hikaricp_connections_acquire_seconds_count");
+        assertContains(metrics, "hikaricp_connections_active{pool=\"primary\"");
+        assertContains(metrics, "hikaricp_connections_idle{pool=\"primary\"");
+        assertContains(metrics, "hikaricp_connections_pending{pool=\"primary\"");
+        assertContains(metrics, "hibernate_sessions_open_total");
+        assertContains(metrics, "login_queue_depth");
+    }
+
+
+    private static void assertContains(String metrics, String expected) {
+        assertTrue(metrics.contains(expected), () -> "No " + expected + " in the scrape");
+    }
+}
@@ -0,0 +1,107 @@
+package org.upgrad.upstac.config.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenProviderTest {
+
+    TokenProvider tokenProvider;
+
+    String token;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        tokenProvider = new TokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "secretKey", "SomeTestSecret@%^%@^!@$!@$@#$#$#6763276327");
+
+        token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("tester", "",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_TESTER"))));
+    }
+
+
+    @Test
+    public void calling_getVerifiedClaims_twice_verifies_the_token_once() {
+
+        Claims first = tokenProvider.getVerifiedClaims(token);
+        Claims second = tokenProvider.getVerifiedClaims(token);
+
+        assertSame(first, second);
+        assertEquals("tester", second.getSubject());
+        assertEquals(1, tokenProvider.getVerifiedTokenCache().stats().missCount());
+        assertEquals(1, tokenProvider.getVerifiedTokenCache().stats().hitCount());
+    }
+
+    @Test
+    public void calling_getVerifiedClaims_with_tampered_token_throws_and_is_not_cached() {
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> tokenProvider.getVerifiedClaims(tampered));
+        assertThrows(JwtException.class, () -> tokenProvider.getVerifiedClaims(tampered));
+
+        assertEquals(0, tokenProvider.getVerifiedTokenCache().estimatedSize());
+    }
+
+    @Test
+    public void calling_getAuthentication_builds_principal_from_claims_of_token_with_user() {
+
+        User user = new User();
+        user.setId(7L);
+        user.setUserName("tester");
+        user.setStatus(AccountStatus.APPROVED);
+        String tokenWithUser = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("tester", "",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_TESTER"))), user);
+
+        Claims claims = tokenProvider.getVerifiedClaims(tokenWithUser);
+        UsernamePasswordAuthenticationToken authentication = tokenProvider.getAuthentication(claims);
+
+        assertEquals(7L, tokenProvider.getUserId(claims));
+        assertEquals("tester", ((UserDetails) authentication.getPrincipal()).getUsername());
+        assertEquals("ROLE_TESTER", authentication.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    public void token_issued_before_version_bump_or_status_change_is_not_current() {
+
+        User user = new User();
+        user.setId(7L);
+        user.setUserName("tester");
+        user.setStatus(AccountStatus.APPROVED);
+        Claims claims = tokenProvider.getVerifiedClaims(tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("tester", "",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_TESTER"))), user));
+
+        assertTrue(tokenProvider.isCurrentFor(claims, user));
+
+        user.setTokenVersion(1);
+        assertFalse(tokenProvider.isCurrentFor(claims, user));
+
+        user.setTokenVersion(0);
+        user.setStatus(AccountStatus.REJECTED);
+        assertFalse(tokenProvider.isCurrentFor(claims, user));
+        assertFalse(tokenProvider.isCurrentFor(claims, null));
+    }
+
+    @Test
+    public void token_issued_without_version_counts_as_first_version() {
+
+        assertEquals(0, tokenProvider.getTokenVersion(tokenProvider.getVerifiedClaims(token)));
+    }
+}
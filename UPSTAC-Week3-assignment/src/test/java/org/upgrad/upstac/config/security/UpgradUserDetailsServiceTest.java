@@ -0,0 +1,88 @@
+package org.upgrad.upstac.config.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.upgrad.upstac.shared.logging.LogSampler;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class UpgradUserDetailsServiceTest {
+
+    @Mock
+    UserService userService;
+
+    @Mock
+    PasswordEncoder passwordEncoder;
+
+    @Mock
+    LogSampler logSampler;
+
+    DaoAuthenticationProvider authenticationProvider;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        authenticationProvider = new DaoAuthenticationProvider();
+        authenticationProvider.setUserDetailsService(new UpgradUserDetailsService(userService, logSampler));
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+    }
+
+
+    @Test
+    public void when_account_not_approved_expect_login_rejected_before_password_check() {
+
+        //Arrange
+        Mockito.when(userService.findByUserName("pending")).thenReturn(createUser("pending", AccountStatus.INITIATED));
+        Mockito.when(userService.findByUserName("rejected")).thenReturn(createUser("rejected", AccountStatus.REJECTED));
+
+        //Act & Assert
+        assertThrows(DisabledException.class, () -> authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("pending", "password")));
+        assertThrows(LockedException.class, () -> authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("rejected", "password")));
+        Mockito.verify(passwordEncoder, Mockito.never()).matches(Mockito.any(), Mockito.any());
+    }
+
+
+    @Test
+    public void when_approved_user_logs_in_expect_loaded_user_carried_by_principal() {
+
+        //Arrange
+        User user = createUser("someuser", AccountStatus.APPROVED);
+        Mockito.when(userService.findByUserName("someuser")).thenReturn(user);
+        Mockito.when(passwordEncoder.matches("password", "hash")).thenReturn(true);
+
+        //Act
+        Authentication result = authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("someuser", "password"));
+
+        //Assert
+        assertSame(user, ((UpgradUserDetails) result.getPrincipal()).getUser());
+        Mockito.verify(userService, Mockito.times(1)).findByUserName("someuser");
+    }
+
+
+    private User createUser(String userName, AccountStatus status) {
+        User user = new User();
+        user.setId(1L);
+        user.setUserName(userName);
+        user.setPassword("hash");
+        user.setStatus(status);
+        user.setRoles(Collections.emptySet());
+        return user;
+    }
+}
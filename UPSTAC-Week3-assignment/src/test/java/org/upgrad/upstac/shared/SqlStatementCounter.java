@@ -0,0 +1,36 @@
+package org.upgrad.upstac.shared;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Registered through spring.jpa.properties.hibernate.session_factory.statement_inspector
+//Hibernate creates its own instance, hence the static counter
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final AtomicInteger count = new AtomicInteger();
+
+    private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String inspect(String sql) {
+        count.incrementAndGet();
+        statements.add(sql);
+        return sql;
+    }
+
+    public static int countStatementsOf(Runnable runnable) {
+        count.set(0);
+        runnable.run();
+        return count.get();
+    }
+
+    public static List<String> statementsOf(Runnable runnable) {
+        statements.clear();
+        runnable.run();
+        return new ArrayList<>(statements);
+    }
+}
@@ -0,0 +1,42 @@
+package org.upgrad.upstac.shared.logging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSamplerTest {
+
+
+    @Test
+    public void when_rates_configured_expect_lines_kept_per_category() {
+
+        //Arrange
+        LogSampler logSampler = new LogSampler();
+        ReflectionTestUtils.setField(logSampler, "auth", 0.0);
+        ReflectionTestUtils.setField(logSampler, "token", 0.5);
+        ReflectionTestUtils.setField(logSampler, "users", 1.0);
+        ReflectionTestUtils.setField(logSampler, "transitions", 1.0);
+        logSampler.start();
+
+        //Act
+        int kept = 0;
+        for (int i = 0; i < 10_000; i++)
+            if (logSampler.sample(LogCategory.TOKEN))
+                kept++;
+
+        //Assert
+        assertFalse(logSampler.sample(LogCategory.AUTH));
+        assertTrue(logSampler.sample(LogCategory.USERS));
+        assertTrue(kept > 4_000 && kept < 6_000, "Kept " + kept);
+    }
+
+
+    @Test
+    public void when_request_id_sent_expect_it_kept_only_if_well_formed() {
+
+        assertEquals("abc-123", RequestIdFilter.requestIdOf("abc-123"));
+        assertNotEquals("bad id\nforged=line", RequestIdFilter.requestIdOf("bad id\nforged=line"));
+        assertFalse(RequestIdFilter.requestIdOf(null).isEmpty());
+    }
+}
@@ -4,9 +4,8 @@ import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-import java.time.LocalDate;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.CursorPage;
 import org.upgrad.upstac.testrequests.consultation.ConsultationController;
 import org.upgrad.upstac.testrequests.consultation.CreateConsultationRequest;
 import org.upgrad.upstac.users.User;
@@ -153,14 +153,14 @@ class ConsultationControllerTest {
 	@Test
 	public void calling_getForConsultations_returns_valid_expect_same_as_response() {
 		
-		List<TestRequest> testRequestLists = new ArrayList<>();
-		Mockito.when(testRequestQueryService.findBy(Mockito.any())).thenReturn(testRequestLists);
+		CursorPage<TestRequestDetail> testRequestPage = new CursorPage<>(new ArrayList<>(), null);
+		Mockito.when(testRequestQueryService.findDetailsBy(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(testRequestPage);
 		
-		List<TestRequest> response = consultationController.getForConsultations();
+		CursorPage<TestRequestDetail> response = consultationController.getForConsultations(null, null);
 		
 		// Assert
 		assertNotNull(response);
-		assertEquals(testRequestLists, response);
+		assertEquals(testRequestPage, response);
 		
 
 	}
@@ -172,15 +172,15 @@ class ConsultationControllerTest {
 	@Test
 	public void calling_getForDoctor_returns_valid_expect_same_as_response() {
 		
-		List<TestRequest> testRequestLists = new ArrayList<>();
+		CursorPage<TestRequestDetail> testRequestPage = new CursorPage<>(new ArrayList<>(), null);
 		
-		Mockito.when(testRequestQueryService.findByDoctor(Mockito.any())).thenReturn(testRequestLists);
+		Mockito.when(testRequestQueryService.findByDoctor(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(testRequestPage);
 		
-		List<TestRequest> response = consultationController.getForDoctor();
+		CursorPage<TestRequestDetail> response = consultationController.getForDoctor(null, null);
 		
 		// Assert
 		assertNotNull(response);
-		assertEquals(testRequestLists, response);
+		assertEquals(testRequestPage, response);
 		
 
 	}
@@ -206,7 +206,7 @@ class ConsultationControllerTest {
         TestRequest testRequest = new TestRequest();
 
         testRequest.setName("someuser");
-        testRequest.setCreated(LocalDate.now());
+        testRequest.setCreated(Instant.now());
         testRequest.setStatus(RequestStatus.DIAGNOSIS_IN_PROCESS);
         testRequest.setAge(70);
         testRequest.setEmail("someone" + "123456789" + "@somedomain.com");
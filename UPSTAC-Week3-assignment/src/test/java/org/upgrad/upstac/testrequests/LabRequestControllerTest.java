@@ -2,10 +2,12 @@ package org.upgrad.upstac.testrequests;
 
 import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-import java.time.LocalDate;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -17,8 +19,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.CursorPage;
 import org.upgrad.upstac.testrequests.lab.CreateLabResult;
 import org.upgrad.upstac.testrequests.lab.LabRequestController;
+import org.upgrad.upstac.testrequests.lab.LabResult;
 import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.models.Gender;
 
@@ -153,6 +157,34 @@ class LabRequestControllerTest {
 
 	}
 
+	/**
+	 * Calling claim for lab test returns the claimed requests with their lab result instead of the entities.
+	 */
+	@Test
+	public void calling_claimForLabTest_returns_details_of_the_claimed_requests() {
+
+		// Arrage
+		User user = createUser();
+		TestRequest response = getMockedResponseFrom();
+		response.setRequestId(5L);
+		LabResult labResult = new LabResult();
+		labResult.setResultId(9L);
+		labResult.setTester(user);
+		response.setLabResult(labResult);
+
+		Mockito.when(userLoggedInService.getLoggedInUser()).thenReturn(user);
+		Mockito.when(testRequestUpdateService.claimForLabTest(user, 1, null)).thenReturn(Collections.singletonList(response));
+
+		// Act
+		List<TestRequestDetail> claimed = labRequestController.claimForLabTest(1, null);
+
+		// Assert
+		assertEquals(1, claimed.size());
+		assertEquals(5L, claimed.get(0).getRequestId());
+		assertEquals("someDoctor", claimed.get(0).getLabResult().getTester());
+		assertNull(claimed.get(0).getConsultation());
+	}
+
 	
 	/**
 	 * Calling get for tests returns valid expect same as response.
@@ -160,14 +192,14 @@ class LabRequestControllerTest {
 	@Test
 	public void calling_getForTests_returns_valid_expect_same_as_response() {
 
-		List<TestRequest> testRequestLists = new ArrayList<>();
-		Mockito.when(testRequestQueryService.findBy(Mockito.any())).thenReturn(testRequestLists);
+		CursorPage<TestRequestSummary> testRequestPage = new CursorPage<>(new ArrayList<>(), null);
+		Mockito.when(testRequestQueryService.findBy(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(testRequestPage);
 		
-		List<TestRequest> response = labRequestController.getForTests();
+		CursorPage<TestRequestSummary> response = labRequestController.getForTests(null, null);
 		
 		// Assert
 		assertNotNull(response);
-		assertEquals(testRequestLists, response);
+		assertEquals(testRequestPage, response);
 	}
 	
 	
@@ -178,15 +210,15 @@ class LabRequestControllerTest {
 	public void calling_getForTester_returns_valid_expect_same_as_response() {
 		User user = createUser();
 		
-		List<TestRequest> testRequestLists = new ArrayList<>();
+		CursorPage<TestRequestDetail> testRequestPage = new CursorPage<>(new ArrayList<>(), null);
 		Mockito.when(userLoggedInService.getLoggedInUser()).thenReturn(user);
-		Mockito.when(testRequestQueryService.findByTester(Mockito.any())).thenReturn(testRequestLists);
+		Mockito.when(testRequestQueryService.findByTester(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(testRequestPage);
 		
-		List<TestRequest> response = labRequestController.getForTester();
+		CursorPage<TestRequestDetail> response = labRequestController.getForTester(null, null);
 		
 		// Assert
 		assertNotNull(response);
-		assertEquals(testRequestLists, response);
+		assertEquals(testRequestPage, response);
 	}
 
 	
@@ -211,7 +243,7 @@ class LabRequestControllerTest {
         TestRequest testRequest = new TestRequest();
 
         testRequest.setName("someuser");
-        testRequest.setCreated(LocalDate.now());
+        testRequest.setCreated(Instant.now());
         testRequest.setStatus(RequestStatus.DIAGNOSIS_IN_PROCESS);
         testRequest.setAge(70);
         testRequest.setEmail("someone" + "123456789" + "@somedomain.com");
@@ -0,0 +1,141 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.upgrad.upstac.shared.BatchItemResult;
+import org.upgrad.upstac.testrequests.lab.CreateLabResultItem;
+import org.upgrad.upstac.testrequests.lab.LabResultBatchService;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.User;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class LabResultBatchServiceTest {
+
+    @Mock
+    TestRequestUpdateService testRequestUpdateService;
+
+    @Spy
+    Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @InjectMocks
+    LabResultBatchService labResultBatchService;
+
+
+    @Test
+    public void invalid_items_fail_without_being_applied_and_results_keep_the_order_sent() {
+
+        //Arrange
+        User tester = createUser();
+        CreateLabResultItem first = createLabResultItem(1L);
+        CreateLabResultItem missingResult = createLabResultItem(2L);
+        missingResult.setResult(null);
+        CreateLabResultItem third = createLabResultItem(3L);
+
+        Mockito.when(testRequestUpdateService.updateLabTests(Arrays.asList(first, third), tester))
+                .thenReturn(Arrays.asList(BatchItemResult.succeeded(1L), BatchItemResult.failed(3L, "Invalid ID or State")));
+
+        //Act
+        List<BatchItemResult> results = labResultBatchService.updateLabTests(Arrays.asList(first, missingResult, third), tester);
+
+        //Assert
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertThat(results.get(1).getMessage(), containsString("result"));
+        assertEquals(3L, results.get(2).getId());
+        assertFalse(results.get(2).isSuccess());
+    }
+
+    @Test
+    public void null_item_fails_on_its_own() {
+
+        //Arrange
+        User tester = createUser();
+        CreateLabResultItem first = createLabResultItem(1L);
+
+        Mockito.when(testRequestUpdateService.updateLabTests(Collections.singletonList(first), tester))
+                .thenReturn(Collections.singletonList(BatchItemResult.succeeded(1L)));
+
+        //Act
+        List<BatchItemResult> results = labResultBatchService.updateLabTests(Arrays.asList(first, null), tester);
+
+        //Assert
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertThat(results.get(1).getMessage(), containsString("missing"));
+    }
+
+    @Test
+    public void unreadable_csv_row_fails_with_its_row_number() {
+
+        //Arrange
+        User tester = createUser();
+        String csv = "requestId,bloodPressure,heartBeat,temperature,oxygenLevel,comments,result\n" +
+                "1,120/80,72,98.6,97,\"fine, no issues\",negative\n" +
+                "2,120/80,72,98.6,97,,unknown\n";
+
+        Mockito.when(testRequestUpdateService.updateLabTests(any(), eq(tester)))
+                .thenReturn(Collections.singletonList(BatchItemResult.succeeded(1L)));
+
+        //Act
+        List<BatchItemResult> results = labResultBatchService.updateLabTestsFromCsv(csv, tester);
+
+        //Assert
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(2L, results.get(1).getId());
+        assertThat(results.get(1).getMessage(), containsString("Row 2"));
+    }
+
+    @Test
+    public void chunk_that_cannot_be_saved_fails_all_of_its_items() {
+
+        //Arrange
+        User tester = createUser();
+        Mockito.when(testRequestUpdateService.updateLabTests(any(), eq(tester))).thenThrow(new IllegalStateException("connection lost"));
+
+        //Act
+        List<BatchItemResult> results = labResultBatchService.updateLabTests(Arrays.asList(createLabResultItem(1L), createLabResultItem(2L)), tester);
+
+        //Assert
+        assertEquals(2, results.size());
+        results.forEach(result -> assertFalse(result.isSuccess()));
+    }
+
+
+    private CreateLabResultItem createLabResultItem(Long requestId) {
+        CreateLabResultItem createLabResultItem = new CreateLabResultItem();
+        createLabResultItem.setRequestId(requestId);
+        createLabResultItem.setBloodPressure("120/80");
+        createLabResultItem.setHeartBeat("72");
+        createLabResultItem.setTemperature("98.6");
+        createLabResultItem.setOxygenLevel("97");
+        createLabResultItem.setResult(TestStatus.NEGATIVE);
+        return createLabResultItem;
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setId(1L);
+        user.setUserName("someTester");
+        return user;
+    }
+}
@@ -0,0 +1,135 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Two testers race for the same request against the flyway schema, only one of them may move it and get a lab result
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:concurrency-test;DB_CLOSE_DELAY=-1")
+class TestRequestConcurrencyTest {
+
+    @Autowired
+    TestRequestUpdateService testRequestUpdateService;
+
+    @Autowired
+    TestRequestRepository testRequestRepository;
+
+    @Autowired
+    LabResultRepository labResultRepository;
+
+    @Autowired
+    UserService userService;
+
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    ExecutorService executor;
+    User tester;
+    TestRequest testRequest;
+
+
+    @BeforeEach
+    public void createInitiatedRequest() {
+
+        executor = Executors.newFixedThreadPool(2);
+        tester = userService.findByUserName("tester");
+
+        int next = sequence.incrementAndGet();
+        testRequest = new TestRequest();
+        testRequest.setName("someuser");
+        testRequest.setGender(Gender.MALE);
+        testRequest.setAge(40);
+        testRequest.setEmail("racer" + next + "@somedomain.com");
+        testRequest.setPhoneNumber("91234" + next);
+        testRequest.setPinCode(560000 + next);
+        testRequest.setCreatedBy(tester);
+        testRequest = testRequestRepository.save(testRequest);
+    }
+
+    @AfterEach
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+
+    @Test
+    public void when_two_testers_assign_the_same_request_expect_one_wins() throws Exception {
+
+        //Arrange
+        Long id = testRequest.getRequestId();
+
+        //Act
+        List<Boolean> outcomes = race(() -> {
+            try {
+                testRequestUpdateService.assignForLabTest(id, tester);
+                return true;
+            } catch (AppException e) {
+                return false;
+            }
+        });
+
+        //Assert
+        assertEquals(1, outcomes.stream().filter(won -> won).count());
+        assertEquals(RequestStatus.LAB_TEST_IN_PROGRESS, testRequestRepository.findByRequestId(id).get().getStatus());
+        assertEquals(1, labResultRepository.findByRequestIn(Collections.singleton(testRequest)).size());
+    }
+
+    @Test
+    public void when_two_testers_claim_the_same_request_expect_it_handed_to_one() throws Exception {
+
+        //Arrange
+        Long id = testRequest.getRequestId();
+        Integer pinCode = testRequest.getPinCode();
+
+        //Act
+        List<Boolean> outcomes = race(() -> testRequestUpdateService.claimForLabTest(tester, 1, pinCode).stream()
+                .anyMatch(claimed -> id.equals(claimed.getRequestId())));
+
+        //Assert
+        assertEquals(1, outcomes.stream().filter(won -> won).count());
+        LabResult labResult = labResultRepository.findByRequest(testRequest).get();
+        assertEquals(tester.getId(), labResult.getTester().getId());
+    }
+
+
+    //Starts the work on both threads at once and waits for both outcomes
+    private List<Boolean> race(Callable<Boolean> work) throws Exception {
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++)
+            futures.add(executor.submit(() -> {
+                start.await();
+                return work.call();
+            }));
+
+        start.countDown();
+
+        List<Boolean> outcomes = new ArrayList<>();
+        for (Future<Boolean> future : futures)
+            outcomes.add(future.get(30, TimeUnit.SECONDS));
+
+        return outcomes;
+    }
+}
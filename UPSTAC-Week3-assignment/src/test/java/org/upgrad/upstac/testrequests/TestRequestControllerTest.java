@@ -4,7 +4,7 @@ import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-import java.time.LocalDate;
+import java.time.Instant;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -89,7 +89,7 @@ class TestRequestControllerTest {
         TestRequest testRequest = new TestRequest();
 
         testRequest.setName(createTestRequest.getName());
-        testRequest.setCreated(LocalDate.now());
+        testRequest.setCreated(Instant.now());
         testRequest.setStatus(RequestStatus.INITIATED);
         testRequest.setAge(createTestRequest.getAge());
         testRequest.setEmail(createTestRequest.getEmail());
@@ -6,13 +6,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.dashboard.DashboardCounters;
 import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.models.Gender;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.hamcrest.MatcherAssert.*;
@@ -25,6 +25,9 @@ class TestRequestCreateServiceTest {
     @Mock
     TestRequestRepository testRequestRepository;
 
+    @Mock
+    DashboardCounters dashboardCounters;
+
 
     @InjectMocks
     TestRequestService testRequestService;
@@ -46,11 +49,10 @@ class TestRequestCreateServiceTest {
 
 
         //Mock
-        //testRequestRepository.findByEmailOrPhoneNumber
-        //returns  List<TestRequest>
+        //testRequestRepository.existsInProgressWithEmailOrPhoneNumber
+        //returns  boolean
 
-        List<TestRequest> existingTestRequests = new ArrayList<>();
-        Mockito.when(testRequestRepository.findByEmailOrPhoneNumber(createTestRequest.getEmail(),createTestRequest.getPhoneNumber())).thenReturn(existingTestRequests);
+        Mockito.when(testRequestRepository.existsInProgressWithEmailOrPhoneNumber(createTestRequest.getEmail(),createTestRequest.getPhoneNumber())).thenReturn(false);
 
         //testRequestRepository.save
         //return TestRequest
@@ -90,11 +92,10 @@ class TestRequestCreateServiceTest {
 
 
         //Mock
-        //testRequestRepository.findByEmailOrPhoneNumber
-            //returns  List<TestRequest>
+        //testRequestRepository.existsInProgressWithEmailOrPhoneNumber
+            //returns  boolean
 
-        List<TestRequest> existingTestRequests = getExistingTestRequests();
-        Mockito.when(testRequestRepository.findByEmailOrPhoneNumber(createTestRequest.getEmail(),createTestRequest.getPhoneNumber())).thenReturn(existingTestRequests);
+        Mockito.when(testRequestRepository.existsInProgressWithEmailOrPhoneNumber(createTestRequest.getEmail(),createTestRequest.getPhoneNumber())).thenReturn(true);
         //testRequestRepository.save
         //return TestRequest
 
@@ -117,6 +118,61 @@ class TestRequestCreateServiceTest {
 
     }
 
+
+    @Test
+    public void when_concurrent_TestRequest_with_same_phoneNumber_is_saved_first_throw_exception() {
+
+        //Arrange
+
+        User user= createUser();
+        CreateTestRequest createTestRequest = createTestRequest();
+
+
+        //Mock
+        //The existence check passes, the unique key rejects the insert
+
+        Mockito.when(testRequestRepository.existsInProgressWithEmailOrPhoneNumber(createTestRequest.getEmail(),createTestRequest.getPhoneNumber())).thenReturn(false);
+        Mockito.when(testRequestRepository.save(any())).thenThrow(new DataIntegrityViolationException("uk_test_request_active_phone_number"));
+
+
+        //Act
+
+        AppException result = assertThrows(AppException.class,()->{
+
+            testRequestService.createTestRequestFrom(user,createTestRequest);
+        });
+
+
+        //Assert
+
+        assertThat(result.getMessage(),containsString("A Request with same PhoneNumber or Email is already in progress"));
+
+    }
+
+    @Test
+    public void calling_createTestRequestFrom_when_another_constraint_fails_should_rethrow_it() {
+
+        //Arrange
+        User user = createUser();
+        CreateTestRequest createTestRequest = createTestRequest();
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("could not execute statement",
+                new IllegalStateException("Referential integrity constraint violation: \"FK_TEST_REQUEST_CREATED_BY\""));
+
+        Mockito.when(testRequestRepository.existsInProgressWithEmailOrPhoneNumber(createTestRequest.getEmail(),createTestRequest.getPhoneNumber())).thenReturn(false);
+        Mockito.when(testRequestRepository.save(any())).thenThrow(violation);
+
+        //Act
+        DataIntegrityViolationException result = assertThrows(DataIntegrityViolationException.class,()->{
+
+            testRequestService.createTestRequestFrom(user,createTestRequest);
+        });
+
+        //Assert
+        assertSame(violation, result);
+        assertTrue(TestRequestService.violatesActiveRequestKey(new DataIntegrityViolationException("could not execute statement",
+                new IllegalStateException("Unique index or primary key violation: \"PUBLIC.UK_TEST_REQUEST_ACTIVE_EMAIL_INDEX_2 ON PUBLIC.TEST_REQUEST(ACTIVE_EMAIL)\""))));
+    }
+
     public CreateTestRequest createTestRequest() {
         CreateTestRequest createTestRequest = new CreateTestRequest();
         createTestRequest.setAddress("some Addres");
@@ -129,20 +185,12 @@ class TestRequestCreateServiceTest {
         return createTestRequest;
     }
 
-     List<TestRequest> getExistingTestRequests() {
-        List<TestRequest> testRequests = new ArrayList<>();
-
-        testRequests.add(getMockedTestRequest());
-        return testRequests;
-    }
-
-
     public TestRequest getMockedTestRequest() {
         CreateTestRequest createTestRequest =createTestRequest();
         TestRequest testRequest = new TestRequest();
 
         testRequest.setName(createTestRequest.getName());
-        testRequest.setCreated(LocalDate.now());
+        testRequest.setCreated(Instant.now());
         testRequest.setStatus(RequestStatus.INITIATED);
         testRequest.setAge(createTestRequest.getAge());
         testRequest.setEmail(createTestRequest.getEmail());
@@ -0,0 +1,153 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowRepository;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.Gender;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.upgrad.upstac.shared.CursorPage.firstPageOf;
+import static org.upgrad.upstac.shared.SqlStatementCounter.statementsOf;
+
+//Runs the hot repository queries, then asks H2 for the plan of every statement hibernate issued for them
+//H2 reports a full scan as "tableScan", which means a migration is missing an index
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan-test;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.upgrad.upstac.shared.SqlStatementCounter"
+})
+class TestRequestQueryPlanTest {
+
+    private static final Pageable FIRST_PAGE = firstPageOf(50);
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    TestRequestRepository testRequestRepository;
+
+    @Autowired
+    LabResultRepository labResultRepository;
+
+    @Autowired
+    ConsultationRepository consultationRepository;
+
+    @Autowired
+    TestRequestFlowRepository testRequestFlowRepository;
+
+    @Autowired
+    UserService userService;
+
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    User tester;
+    User doctor;
+    TestRequest testRequest;
+
+
+    @BeforeEach
+    public void createRequestHandledByTesterAndDoctor() {
+
+        tester = userService.findByUserName("tester");
+        doctor = userService.findByUserName("doctor");
+
+        int next = sequence.incrementAndGet();
+        testRequest = new TestRequest();
+        testRequest.setName("someuser");
+        testRequest.setGender(Gender.MALE);
+        testRequest.setAge(40);
+        testRequest.setEmail("someone" + next + "@somedomain.com");
+        testRequest.setPhoneNumber("98765" + next);
+        testRequest.setPinCode(110001);
+        testRequest.setStatus(RequestStatus.DIAGNOSIS_IN_PROCESS);
+        testRequest.setCreatedBy(tester);
+        testRequest = testRequestRepository.save(testRequest);
+
+        LabResult labResult = new LabResult();
+        labResult.setTester(tester);
+        labResult.setRequest(testRequest);
+        labResultRepository.save(labResult);
+
+        Consultation consultation = new Consultation();
+        consultation.setDoctor(doctor);
+        consultation.setRequest(testRequest);
+        consultationRepository.save(consultation);
+    }
+
+
+    @Test
+    public void test_request_queries_use_an_index() throws SQLException {
+
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findByStatus(RequestStatus.DIAGNOSIS_IN_PROCESS)));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findByCreatedBy(tester)));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findByEmail("someone@somedomain.com")));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findByPhoneNumber("9876543210")));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.existsInProgressWithEmailOrPhoneNumber("nobody@somedomain.com", "9876543210")));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findSummariesByStatus(RequestStatus.INITIATED, 0L, FIRST_PAGE)));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findDetailsByStatus(RequestStatus.DIAGNOSIS_IN_PROCESS, 0L, FIRST_PAGE)));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findDetailsByCreatedBy(tester, 0L, FIRST_PAGE)));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findDetailsByTester(tester, 0L, FIRST_PAGE)));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findDetailsByDoctor(doctor, 0L, FIRST_PAGE)));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.findDetailByRequestId(testRequest.getRequestId())));
+        assertNoTableScanIn(statementsOf(() -> testRequestRepository.countByPinCodeCreatedBetween(Instant.EPOCH, Instant.now())));
+    }
+
+    @Test
+    public void lab_result_consultation_and_flow_queries_use_an_index() throws SQLException {
+
+        assertNoTableScanIn(statementsOf(() -> labResultRepository.findByTester(tester)));
+        assertNoTableScanIn(statementsOf(() -> labResultRepository.findByRequest(testRequest)));
+        assertNoTableScanIn(statementsOf(() -> consultationRepository.findByDoctor(doctor)));
+        assertNoTableScanIn(statementsOf(() -> consultationRepository.findByRequest(testRequest)));
+        assertNoTableScanIn(statementsOf(() -> testRequestFlowRepository.findByRequest(testRequest)));
+        assertNoTableScanIn(statementsOf(() -> testRequestFlowRepository.findByHappenedOn(Instant.EPOCH, Instant.now(), Instant.EPOCH, 0L, FIRST_PAGE)));
+        assertNoTableScanIn(statementsOf(() -> testRequestFlowRepository.findByToStatusAndHappenedOn(RequestStatus.COMPLETED, Instant.EPOCH, Instant.now(), Instant.EPOCH, 0L, FIRST_PAGE)));
+        assertNoTableScanIn(statementsOf(() -> testRequestFlowRepository.findStageTimings(RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, Instant.EPOCH, Instant.now(), Instant.EPOCH, 0L, FIRST_PAGE)));
+        assertNoTableScanIn(statementsOf(() -> testRequestFlowRepository.findTimingsSinceCreation(RequestStatus.LAB_TEST_IN_PROGRESS, Instant.EPOCH, Instant.now(), Instant.EPOCH, 0L, FIRST_PAGE)));
+    }
+
+
+    private void assertNoTableScanIn(List<String> statements) throws SQLException {
+
+        assertFalse(statements.isEmpty());
+
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains(".tableScan"), () -> "Full scan in " + plan);
+        }
+    }
+
+    //The parameters only need a value to run the explain, the plan is chosen when the statement is prepared
+    private String explain(String sql) throws SQLException {
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+
+            int parameterCount = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameterCount; i++)
+                statement.setObject(i, null);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+}
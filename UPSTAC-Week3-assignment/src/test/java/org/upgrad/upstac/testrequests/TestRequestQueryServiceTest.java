@@ -0,0 +1,117 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.upgrad.upstac.config.loaddata.AppInitializationService.createRegisterRequestWith;
+import static org.upgrad.upstac.shared.SqlStatementCounter.countStatementsOf;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-service-test;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.upgrad.upstac.shared.SqlStatementCounter"
+})
+class TestRequestQueryServiceTest {
+
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    @Autowired
+    TestRequestQueryService testRequestQueryService;
+
+    @Autowired
+    TestRequestRepository testRequestRepository;
+
+    @Autowired
+    LabResultRepository labResultRepository;
+
+    @Autowired
+    ConsultationRepository consultationRepository;
+
+    @Autowired
+    UserService userService;
+
+
+    @Test
+    public void findByTester_runs_the_same_number_of_statements_whatever_the_result_size() {
+
+        //Arrange
+        User tester = userService.findByUserName("tester");
+        User doctor = userService.findByUserName("doctor");
+        createRequestsHandledBy(tester, doctor, 2);
+        int statementsForFewRequests = countStatementsOf(() -> testRequestQueryService.findByTester(tester, null, 50));
+
+        createRequestsHandledBy(tester, doctor, 8);
+
+        //Act
+        AtomicReference<CursorPage<TestRequestDetail>> result = new AtomicReference<>();
+        int statementsForManyRequests = countStatementsOf(() -> result.set(testRequestQueryService.findByTester(tester, null, 50)));
+
+        //Assert
+        assertEquals(1, statementsForFewRequests);
+        assertEquals(statementsForFewRequests, statementsForManyRequests);
+        assertEquals(10, result.get().getItems().size());
+        result.get().getItems().forEach(testRequest -> assertEquals("tester", testRequest.getLabResult().getTester()));
+    }
+
+    @Test
+    public void findByDoctor_runs_the_same_number_of_statements_whatever_the_result_size() {
+
+        //Arrange
+        User tester = userService.findByUserName("tester");
+        User doctor = userService.findByUserName("doctor");
+        createRequestsHandledBy(tester, doctor, 1);
+        int statementsForFewRequests = countStatementsOf(() -> testRequestQueryService.findByDoctor(doctor, null, 50));
+
+        createRequestsHandledBy(tester, doctor, 6);
+
+        //Act
+        int statementsForManyRequests = countStatementsOf(() -> testRequestQueryService.findByDoctor(doctor, null, 50));
+
+        //Assert
+        assertEquals(1, statementsForFewRequests);
+        assertEquals(statementsForFewRequests, statementsForManyRequests);
+    }
+
+
+    //Every request gets its own creator, so loading the creators' roles one by one would show up as extra statements
+    private void createRequestsHandledBy(User tester, User doctor, int count) {
+
+        for (int i = 0; i < count; i++) {
+            int next = sequence.incrementAndGet();
+            User creator = userService.addUser(createRegisterRequestWith("creator" + next, 110001));
+
+            TestRequest testRequest = new TestRequest();
+            testRequest.setName("someuser" + next);
+            testRequest.setGender(Gender.MALE);
+            testRequest.setAge(40);
+            testRequest.setEmail("someone" + next + "@somedomain.com");
+            testRequest.setPhoneNumber("98765" + next);
+            testRequest.setPinCode(110001);
+            testRequest.setStatus(RequestStatus.DIAGNOSIS_IN_PROCESS);
+            testRequest.setCreatedBy(creator);
+            testRequest = testRequestRepository.save(testRequest);
+
+            LabResult labResult = new LabResult();
+            labResult.setTester(tester);
+            labResult.setRequest(testRequest);
+            labResultRepository.save(labResult);
+
+            Consultation consultation = new Consultation();
+            consultation.setDoctor(doctor);
+            consultation.setRequest(testRequest);
+            consultationRepository.save(consultation);
+        }
+    }
+}
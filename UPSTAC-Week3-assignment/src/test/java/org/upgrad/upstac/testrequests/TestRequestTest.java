@@ -0,0 +1,57 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TestRequestTest {
+
+
+    @Test
+    public void when_request_inserted_in_progress_expect_active_keys_set_until_completed() {
+
+        //Arrange
+        TestRequest testRequest = createTestRequest();
+
+        //Act & Assert
+        testRequest.setActiveKeys();
+        assertEquals("someone@somedomain.com", testRequest.getActiveEmail());
+        assertEquals("9876543210", testRequest.getActivePhoneNumber());
+
+        testRequest.setStatus(RequestStatus.DIAGNOSIS_IN_PROCESS);
+        testRequest.clearActiveKeys();
+        assertEquals("someone@somedomain.com", testRequest.getActiveEmail());
+
+        testRequest.setStatus(RequestStatus.COMPLETED);
+        testRequest.clearActiveKeys();
+        assertNull(testRequest.getActiveEmail());
+        assertNull(testRequest.getActivePhoneNumber());
+    }
+
+
+    @Test
+    public void when_request_without_keys_moves_on_expect_keys_left_null() {
+
+        //Arrange
+        //A duplicate left in progress before V3, only the newest request per email and phone got the keys
+        TestRequest legacy = createTestRequest();
+
+        //Act
+        legacy.setStatus(RequestStatus.LAB_TEST_IN_PROGRESS);
+        legacy.clearActiveKeys();
+
+        //Assert
+        assertNull(legacy.getActiveEmail());
+        assertNull(legacy.getActivePhoneNumber());
+    }
+
+
+    private TestRequest createTestRequest() {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setEmail("someone@somedomain.com");
+        testRequest.setPhoneNumber("9876543210");
+        testRequest.setStatus(RequestStatus.INITIATED);
+        return testRequest;
+    }
+}
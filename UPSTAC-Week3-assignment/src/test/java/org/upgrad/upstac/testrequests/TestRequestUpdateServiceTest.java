@@ -0,0 +1,159 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.consultation.ConsultationService;
+import org.upgrad.upstac.testrequests.dashboard.DashboardCounters;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultService;
+import org.upgrad.upstac.users.User;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.upgrad.upstac.shared.CursorPage.firstPageOf;
+
+@ExtendWith(MockitoExtension.class)
+class TestRequestUpdateServiceTest {
+
+    @Mock
+    TestRequestRepository testRequestRepository;
+
+    @Mock
+    TestRequestFlowService testRequestFlowService;
+
+    @Mock
+    LabResultService labResultService;
+
+    @Mock
+    ConsultationService consultationService;
+
+    @Mock
+    DashboardCounters dashboardCounters;
+
+    @InjectMocks
+    TestRequestUpdateService testRequestUpdateService;
+
+
+    @Test
+    public void when_request_moved_to_lab_test_expect_lab_result_assigned_to_tester() {
+
+        //Arrange
+        User tester = createUser();
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(2L);
+        LabResult labResult = new LabResult();
+
+        Mockito.when(testRequestRepository.compareAndSetStatus(2L, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS)).thenReturn(1);
+        Mockito.when(testRequestRepository.findByRequestId(2L)).thenReturn(Optional.of(testRequest));
+        Mockito.when(labResultService.assignForLabTest(testRequest, tester)).thenReturn(labResult);
+
+        //Act
+        TestRequest result = testRequestUpdateService.assignForLabTest(2L, tester);
+
+        //Assert
+        assertSame(labResult, result.getLabResult());
+        Mockito.verify(testRequestFlowService).log(testRequest, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, tester);
+    }
+
+
+    @Test
+    public void when_request_already_assigned_by_another_tester_expect_no_lab_result_created() {
+
+        //Arrange
+        //The other tester's update won, so this one matches no row
+        User tester = createUser();
+        Mockito.when(testRequestRepository.compareAndSetStatus(2L, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS)).thenReturn(0);
+
+        //Act
+        AppException result = assertThrows(AppException.class, () -> testRequestUpdateService.assignForLabTest(2L, tester));
+
+        //Assert
+        assertEquals("Invalid ID", result.getMessage());
+        Mockito.verify(labResultService, Mockito.never()).assignForLabTest(any(), any());
+        Mockito.verifyNoInteractions(testRequestFlowService);
+    }
+
+
+    @Test
+    public void when_request_not_in_diagnosis_expect_consultation_left_unchanged() {
+
+        //Arrange
+        User doctor = createUser();
+        Mockito.when(testRequestRepository.compareAndSetCompleted(3L, RequestStatus.DIAGNOSIS_IN_PROCESS)).thenReturn(0);
+
+        //Act
+        assertThrows(AppException.class, () -> testRequestUpdateService.updateConsultation(3L, null, doctor));
+
+        //Assert
+        Mockito.verify(testRequestRepository, Mockito.never()).compareAndSetStatus(any(), any(), any());
+        Mockito.verifyNoInteractions(consultationService);
+    }
+
+
+    @Test
+    public void when_pin_code_queue_runs_short_expect_claim_topped_up_from_oldest_requests() {
+
+        //Arrange
+        User tester = createUser();
+        TestRequest inPinCode = createTestRequest(5L, RequestStatus.INITIATED);
+        TestRequest oldest = createTestRequest(2L, RequestStatus.INITIATED);
+
+        Mockito.when(testRequestRepository.claimByStatusAndPinCode(RequestStatus.INITIATED, 110001, firstPageOf(2))).thenReturn(Collections.singletonList(inPinCode));
+        Mockito.when(testRequestRepository.claimByStatus(RequestStatus.INITIATED, firstPageOf(1))).thenReturn(Collections.singletonList(oldest));
+
+        //Act
+        List<TestRequest> result = testRequestUpdateService.claimForLabTest(tester, 2, 110001);
+
+        //Assert
+        assertEquals(Arrays.asList(inPinCode, oldest), result);
+        assertEquals(RequestStatus.LAB_TEST_IN_PROGRESS, inPinCode.getStatus());
+        assertEquals(RequestStatus.LAB_TEST_IN_PROGRESS, oldest.getStatus());
+        Mockito.verify(labResultService).assignForLabTest(inPinCode, tester);
+        Mockito.verify(labResultService).assignForLabTest(oldest, tester);
+        Mockito.verify(dashboardCounters, Mockito.times(2)).statusChanged(RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS);
+    }
+
+
+    @Test
+    public void when_claimed_request_already_moved_on_expect_it_left_out() {
+
+        //Arrange
+        User doctor = createUser();
+        TestRequest movedOn = createTestRequest(3L, RequestStatus.DIAGNOSIS_IN_PROCESS);
+
+        Mockito.when(testRequestRepository.claimByStatus(RequestStatus.LAB_TEST_COMPLETED, firstPageOf(TestRequestUpdateService.MAX_CLAIM))).thenReturn(Collections.singletonList(movedOn));
+
+        //Act
+        List<TestRequest> result = testRequestUpdateService.claimForConsultation(doctor, 1000, null);
+
+        //Assert
+        assertTrue(result.isEmpty());
+        Mockito.verifyNoInteractions(consultationService, testRequestFlowService);
+    }
+
+
+    private TestRequest createTestRequest(Long id, RequestStatus status) {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(id);
+        testRequest.setStatus(status);
+        return testRequest;
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setId(1L);
+        user.setUserName("someuser");
+        return user;
+    }
+}
@@ -0,0 +1,106 @@
+package org.upgrad.upstac.testrequests.dashboard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardCountersTest {
+
+    @Mock
+    TestRequestRepository testRequestRepository;
+
+    @Mock
+    LabResultRepository labResultRepository;
+
+    @Mock
+    ConsultationRepository consultationRepository;
+
+    @InjectMocks
+    DashboardCounters dashboardCounters;
+
+
+    @Test
+    public void counts_follow_a_request_through_its_transitions() {
+
+        //Outside of a transaction every change is counted right away
+        dashboardCounters.requestCreated(createTestRequest(110001));
+        dashboardCounters.requestCreated(createTestRequest(110001));
+        dashboardCounters.statusChanged(RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS);
+        dashboardCounters.statusChanged(RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED);
+        dashboardCounters.labResultRecorded(TestStatus.POSITIVE);
+        dashboardCounters.consultationRecorded(DoctorSuggestion.ADMIT);
+
+        DashboardSummary summary = dashboardCounters.getSummary();
+
+        assertEquals(1L, summary.getRequestsByStatus().get(RequestStatus.INITIATED));
+        assertEquals(0L, summary.getRequestsByStatus().get(RequestStatus.LAB_TEST_IN_PROGRESS));
+        assertEquals(1L, summary.getRequestsByStatus().get(RequestStatus.LAB_TEST_COMPLETED));
+        assertEquals(0L, summary.getRequestsByStatus().get(RequestStatus.COMPLETED));
+        assertEquals(1L, summary.getLabResultsByResult().get(TestStatus.POSITIVE));
+        assertEquals(1L, summary.getConsultationsBySuggestion().get(DoctorSuggestion.ADMIT));
+        assertEquals(2L, dashboardCounters.getRequestsByPinCode(dashboardCounters.today()).get(110001));
+        assertNull(summary.getReconciledAt());
+    }
+
+    @Test
+    public void reconcile_replaces_the_counts_with_those_of_the_tables() {
+
+        dashboardCounters.requestCreated(createTestRequest(110001));
+
+        LocalDate yesterday = dashboardCounters.today().minusDays(1);
+        Instant startOfYesterday = yesterday.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Mockito.when(testRequestRepository.countByStatus()).thenReturn(Arrays.asList(
+                new GroupCount(RequestStatus.COMPLETED, 7L),
+                new GroupCount(RequestStatus.DIAGNOSIS_IN_PROCESS, 2L)));
+        Mockito.when(testRequestRepository.countByPinCodeCreatedBetween(any(), any())).thenAnswer(invocation ->
+                startOfYesterday.equals(invocation.getArgument(0)) && startOfYesterday.plus(Duration.ofDays(1)).equals(invocation.getArgument(1))
+                        ? Collections.singletonList(new GroupCount(560001, 9L))
+                        : Collections.emptyList());
+        Mockito.when(labResultRepository.countByResult()).thenReturn(Collections.singletonList(new GroupCount(TestStatus.NEGATIVE, 9L)));
+        Mockito.when(consultationRepository.countBySuggestion()).thenReturn(Collections.singletonList(new GroupCount(DoctorSuggestion.NO_ISSUES, 7L)));
+
+        dashboardCounters.reconcile();
+
+        DashboardSummary summary = dashboardCounters.getSummary();
+
+        assertEquals(0L, summary.getRequestsByStatus().get(RequestStatus.INITIATED));
+        assertEquals(7L, summary.getRequestsByStatus().get(RequestStatus.COMPLETED));
+        assertEquals(9L, summary.getLabResultsByResult().get(TestStatus.NEGATIVE));
+        assertEquals(7L, summary.getConsultationsBySuggestion().get(DoctorSuggestion.NO_ISSUES));
+        assertEquals(9L, dashboardCounters.getRequestsByPinCode(yesterday).get(560001));
+        assertEquals(Collections.emptyMap(), dashboardCounters.getRequestsByPinCode(dashboardCounters.today()));
+        assertNotNull(summary.getReconciledAt());
+    }
+
+
+    private TestRequest createTestRequest(Integer pinCode) {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setStatus(RequestStatus.INITIATED);
+        testRequest.setPinCode(pinCode);
+        testRequest.setCreated(Instant.now());
+        return testRequest;
+    }
+}
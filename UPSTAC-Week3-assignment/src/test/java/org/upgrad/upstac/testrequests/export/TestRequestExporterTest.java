@@ -0,0 +1,116 @@
+package org.upgrad.upstac.testrequests.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.upgrad.upstac.shared.CsvWriter;
+import org.upgrad.upstac.shared.CursorPage;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequestDetail;
+import org.upgrad.upstac.testrequests.TestRequestQueryService;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class TestRequestExporterTest {
+
+    static final Instant CREATED = Instant.parse("2020-08-01T10:15:30Z");
+
+    TestRequestQueryService testRequestQueryService;
+
+    TestRequestExporter testRequestExporter;
+
+    TestRequestExportFilter filter = new TestRequestExportFilter(RequestStatus.LAB_TEST_COMPLETED, 110001, null, null);
+
+
+    @BeforeEach
+    public void setUp() {
+
+        testRequestQueryService = Mockito.mock(TestRequestQueryService.class);
+
+        testRequestExporter = new TestRequestExporter();
+        ReflectionTestUtils.setField(testRequestExporter, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(testRequestExporter, "testRequestQueryService", testRequestQueryService);
+
+        //Two pages, the second one is the last
+        Mockito.when(testRequestQueryService.findForExport(eq(filter), eq(0L)))
+                .thenReturn(new CursorPage<>(Collections.singletonList(createDetail(1L, "Some, User")), 1L));
+        Mockito.when(testRequestQueryService.findForExport(eq(filter), eq(1L)))
+                .thenReturn(new CursorPage<>(Collections.singletonList(createDetail(2L, "Other \"User\"")), null));
+    }
+
+
+    @Test
+    public void csv_export_writes_every_page_after_the_header() throws IOException {
+
+        ResponseEntity<StreamingResponseBody> response = testRequestExporter.export(filter, ExportFormat.CSV, false);
+
+        String csv = new String(bodyOf(response), StandardCharsets.UTF_8);
+
+        assertEquals(TestRequestExporter.CSV_HEADER +
+                "1,\"Some, User\",MALE,40,,110001,,,LAB_TEST_COMPLETED,2020-08-01T10:15:30Z,120/80,72,98,95,,NEGATIVE,2020-08-01T10:15:30Z,tester,,,,\r\n" +
+                "2,\"Other \"\"User\"\"\",MALE,40,,110001,,,LAB_TEST_COMPLETED,2020-08-01T10:15:30Z,120/80,72,98,95,,NEGATIVE,2020-08-01T10:15:30Z,tester,,,,\r\n", csv);
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void csv_text_starting_like_a_formula_is_written_as_text() {
+
+        assertEquals("'=1+2,'@SUM(A1),\"'-2,3\",-1,plain\r\n", CsvWriter.line("=1+2", "@SUM(A1)", "-2,3", -1, "plain"));
+    }
+
+    @Test
+    public void gzip_ndjson_export_writes_a_line_per_request() throws IOException {
+
+        ResponseEntity<StreamingResponseBody> response = testRequestExporter.export(filter, ExportFormat.NDJSON, true);
+
+        String ndjson;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bodyOf(response)))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) > 0; )
+                out.write(buffer, 0, read);
+            ndjson = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, new ObjectMapper().readTree(lines[0]).get("requestId").asLong());
+        assertEquals(2L, new ObjectMapper().readTree(lines[1]).get("requestId").asLong());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Mockito.verify(testRequestQueryService, Mockito.times(2)).findForExport(any(), any());
+    }
+
+
+    private byte[] bodyOf(ResponseEntity<StreamingResponseBody> response) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    private TestRequestDetail createDetail(Long requestId, String name) {
+        return new TestRequestDetail(requestId, name, Gender.MALE, 40, null, 110001, null, null, RequestStatus.LAB_TEST_COMPLETED, CREATED,
+                10L, "120/80", "72", "98", "95", null, TestStatus.NEGATIVE, CREATED, "tester",
+                null, null, null, null, null);
+    }
+}
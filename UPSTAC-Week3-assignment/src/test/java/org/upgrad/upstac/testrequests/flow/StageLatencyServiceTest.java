@@ -0,0 +1,94 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.upgrad.upstac.shared.CursorPage.firstPageOf;
+
+@ExtendWith(MockitoExtension.class)
+class StageLatencyServiceTest {
+
+    static final Instant START = Instant.parse("2020-08-01T00:00:00Z");
+    static final Instant END = Instant.parse("2020-08-02T00:00:00Z");
+
+    @Mock
+    TestRequestFlowRepository testRequestFlowRepository;
+
+    @InjectMocks
+    StageLatencyService stageLatencyService;
+
+
+    @Test
+    public void latencies_are_computed_over_every_page_of_timings() {
+
+        //Arrange
+        //A full page of one second stages, then a last page of ten requests that took 1001 to 1010 seconds
+        List<StageTiming> firstPage = new ArrayList<>();
+        for (long id = 1; id <= StageLatencyService.PAGE_SIZE; id++)
+            firstPage.add(createTiming(id, 1));
+
+        List<StageTiming> lastPage = new ArrayList<>();
+        for (long id = 1; id <= 10; id++)
+            lastPage.add(createTiming(StageLatencyService.PAGE_SIZE + id, 1000 + id));
+
+        Mockito.when(testRequestFlowRepository.findStageTimings(RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, START, END, START, 0L, firstPageOf(StageLatencyService.PAGE_SIZE))).thenReturn(firstPage);
+        Mockito.when(testRequestFlowRepository.findStageTimings(RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, START, END, START.plusSeconds(1), (long) StageLatencyService.PAGE_SIZE, firstPageOf(StageLatencyService.PAGE_SIZE))).thenReturn(lastPage);
+
+        //Act
+        StageLatency latency = stageLatencyService.findStageLatency(RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, START, END);
+
+        //Assert
+        assertEquals(StageLatencyService.PAGE_SIZE + 10, latency.getCount());
+        assertEquals(1000L, latency.getP50Millis());
+        assertEquals(1000L, latency.getP90Millis());
+        assertEquals(1_005_000L, latency.getP99Millis(), 1_005_000 * 0.001);
+        assertEquals(1_010_000L, latency.getMaxMillis());
+    }
+
+    @Test
+    public void first_stage_is_timed_from_the_creation_of_the_request() {
+
+        //Arrange
+        Mockito.when(testRequestFlowRepository.findTimingsSinceCreation(eq(RequestStatus.LAB_TEST_IN_PROGRESS), eq(START), eq(END), eq(START), eq(0L), any()))
+                .thenReturn(Collections.singletonList(createTiming(1L, 60)));
+        Mockito.when(testRequestFlowRepository.findStageTimings(any(), any(), eq(START), eq(END), eq(START), eq(0L), any()))
+                .thenReturn(Collections.emptyList());
+
+        //Act
+        List<StageLatency> latencies = stageLatencyService.findStageLatencies(START, END);
+
+        //Assert
+        assertEquals(4, latencies.size());
+        assertEquals(RequestStatus.INITIATED, latencies.get(0).getFromStatus());
+        assertEquals(60_000L, latencies.get(0).getP50Millis());
+        assertEquals(0, latencies.get(3).getCount());
+        assertNull(latencies.get(3).getP99Millis());
+    }
+
+    @Test
+    public void window_that_ends_before_it_starts_is_rejected() {
+
+        assertThrows(AppException.class, () -> stageLatencyService.findStageLatencies(END, START));
+    }
+
+
+    private StageTiming createTiming(Long flowId, long seconds) {
+        return new StageTiming(flowId, START, START.plusSeconds(seconds));
+    }
+}
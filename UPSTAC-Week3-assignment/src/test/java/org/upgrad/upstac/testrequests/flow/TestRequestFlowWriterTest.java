@@ -0,0 +1,161 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+
+class TestRequestFlowWriterTest {
+
+    @TempDir
+    Path directory;
+
+    JdbcTemplate jdbcTemplate;
+
+    TestRequestFlowWriter testRequestFlowWriter;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        testRequestFlowWriter = createWriter(jdbcTemplate, 2);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        testRequestFlowWriter.stop();
+    }
+
+
+    @Test
+    public void appended_entries_are_inserted_by_the_writer_as_one_batch() {
+
+        testRequestFlowWriter.append(createEntry(1L));
+        testRequestFlowWriter.append(createEntry(2L));
+
+        List<Collection<TestRequestFlowEntry>> batches = insertedBatches(1);
+
+        assertEquals(2, batches.get(0).size());
+        assertEquals(0, testRequestFlowWriter.getWrittenByCaller());
+    }
+
+    @Test
+    public void entries_appended_after_stop_are_written_by_the_caller() throws InterruptedException {
+
+        testRequestFlowWriter.stop();
+
+        testRequestFlowWriter.append(createEntry(1L));
+
+        assertEquals(1, testRequestFlowWriter.getWrittenByCaller());
+        assertEquals(1, insertedBatches(1).get(0).size());
+    }
+
+    @Test
+    public void entries_that_cannot_be_inserted_are_replayed_on_the_next_start() throws InterruptedException {
+
+        Mockito.when(jdbcTemplate.batchUpdate(eq(TestRequestFlowWriter.INSERT), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("database is down"));
+        Mockito.when(jdbcTemplate.update(eq(TestRequestFlowWriter.INSERT), any(), any(), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("database is down"));
+
+        testRequestFlowWriter.stop();
+        testRequestFlowWriter.append(createEntry(1L));
+
+        Path fallbackFile = directory.resolve("flow.csv");
+        assertTrue(Files.exists(fallbackFile));
+
+        JdbcTemplate restarted = Mockito.mock(JdbcTemplate.class);
+        testRequestFlowWriter = createWriter(restarted, 2);
+
+        ArgumentCaptor<Collection<TestRequestFlowEntry>> replayed = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(restarted).batchUpdate(eq(TestRequestFlowWriter.INSERT), replayed.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+        assertEquals(createEntry(1L), replayed.getValue().iterator().next());
+        assertFalse(Files.exists(fallbackFile));
+    }
+
+
+    @Test
+    public void entry_the_database_refuses_is_skipped_and_the_rest_of_its_batch_written() {
+
+        Mockito.when(jdbcTemplate.batchUpdate(eq(TestRequestFlowWriter.INSERT), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("no such request"));
+        Mockito.when(jdbcTemplate.update(eq(TestRequestFlowWriter.INSERT), eq(1L), any(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("no such request"));
+
+        testRequestFlowWriter.append(createEntry(1L));
+        testRequestFlowWriter.append(createEntry(2L));
+
+        Mockito.verify(jdbcTemplate, Mockito.timeout(5000)).update(eq(TestRequestFlowWriter.INSERT), eq(2L), any(), any(), any(), any());
+        assertFalse(Files.exists(directory.resolve("flow.csv")));
+    }
+
+    @Test
+    public void unreadable_line_in_the_fallback_file_is_skipped_on_replay() throws Exception {
+
+        testRequestFlowWriter.stop();
+        Path fallbackFile = directory.resolve("flow.csv");
+        Files.write(fallbackFile, Arrays.asList("not an entry", createEntry(1L).toLine()), StandardCharsets.UTF_8);
+
+        JdbcTemplate restarted = Mockito.mock(JdbcTemplate.class);
+        testRequestFlowWriter = createWriter(restarted, 2);
+
+        ArgumentCaptor<Collection<TestRequestFlowEntry>> replayed = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(restarted).batchUpdate(eq(TestRequestFlowWriter.INSERT), replayed.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+        assertEquals(1, replayed.getValue().size());
+        assertFalse(Files.exists(fallbackFile));
+    }
+
+
+    private List<Collection<TestRequestFlowEntry>> insertedBatches(int count) {
+
+        ArgumentCaptor<Collection<TestRequestFlowEntry>> batches = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(jdbcTemplate, Mockito.timeout(5000).times(count))
+                .batchUpdate(eq(TestRequestFlowWriter.INSERT), batches.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+        return batches.getAllValues();
+    }
+
+    private TestRequestFlowWriter createWriter(JdbcTemplate jdbcTemplate, int batchSize) {
+
+        TestRequestFlowWriter writer = new TestRequestFlowWriter();
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "transactionManager", Mockito.mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(writer, "capacity", 10);
+        ReflectionTestUtils.setField(writer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(writer, "flushIntervalMillis", 200L);
+        ReflectionTestUtils.setField(writer, "fallbackFile", directory.resolve("flow.csv").toString());
+        writer.start();
+        return writer;
+    }
+
+    private TestRequestFlowEntry createEntry(Long requestId) {
+        return new TestRequestFlowEntry(requestId, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, 3L, Instant.parse("2020-08-01T10:15:30Z"));
+    }
+}
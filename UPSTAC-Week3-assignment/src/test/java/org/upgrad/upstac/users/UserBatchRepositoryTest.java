@@ -0,0 +1,110 @@
+package org.upgrad.upstac.users;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.upgrad.upstac.users.credentials.PasswordHasher;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.models.Gender;
+import org.upgrad.upstac.users.roles.Role;
+import org.upgrad.upstac.users.roles.RoleService;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Runs the plain JDBC inserts against the schema the flyway migrations create, with the passwords hashed on the real pool
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:user-batch-test;DB_CLOSE_DELAY=-1")
+class UserBatchRepositoryTest {
+
+    @Autowired
+    UserBatchRepository userBatchRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RoleService roleService;
+
+    @Autowired
+    PasswordHasher passwordHasher;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+
+    @Test
+    public void inserted_users_are_stored_with_their_role_and_ids() {
+
+        //Arrange
+        List<String> hashes = passwordHasher.encodeAll(Arrays.asList("doctorpassword", "testerpassword"));
+        User doctor = createUser("batchdoctor", hashes.get(0), roleService.findByRole(UserRole.DOCTOR));
+        User tester = createUser("batchtester", hashes.get(1), roleService.findByRole(UserRole.TESTER));
+        tester.setGender(null);
+        tester.setPinCode(null);
+
+        //Act
+        Map<String, Long> ids = userBatchRepository.insertAll(Arrays.asList(doctor, tester));
+
+        //Assert
+        assertEquals(2, ids.size());
+
+        User savedDoctor = userRepository.findByUserName(doctor.getUserName());
+        assertEquals(ids.get(doctor.getUserName()), savedDoctor.getId());
+        assertEquals(doctor.getEmail(), savedDoctor.getEmail());
+        assertEquals(doctor.getPhoneNumber(), savedDoctor.getPhoneNumber());
+        assertEquals(LocalDate.of(1980, 4, 1), savedDoctor.getDateOfBirth());
+        assertEquals(Gender.FEMALE, savedDoctor.getGender());
+        assertEquals(110001, savedDoctor.getPinCode());
+        assertEquals(AccountStatus.APPROVED, savedDoctor.getStatus());
+        assertEquals(Collections.singleton(UserRole.DOCTOR.name()), roleNamesOf(savedDoctor));
+        assertTrue(passwordEncoder.matches("doctorpassword", savedDoctor.getPassword()));
+
+        User savedTester = userRepository.findByUserName(tester.getUserName());
+        assertEquals(ids.get(tester.getUserName()), savedTester.getId());
+        assertNull(savedTester.getGender());
+        assertNull(savedTester.getPinCode());
+        assertEquals(Collections.singleton(UserRole.TESTER.name()), roleNamesOf(savedTester));
+        assertTrue(passwordEncoder.matches("testerpassword", savedTester.getPassword()));
+    }
+
+
+    private User createUser(String userName, String hash, Role role) {
+
+        int next = sequence.incrementAndGet();
+        User user = new User();
+        user.setUserName(userName + next);
+        user.setPassword(hash);
+        user.setRoles(Collections.singleton(role));
+        user.setCreated(LocalDateTime.now());
+        user.setUpdated(LocalDateTime.now());
+        user.setFirstName("first");
+        user.setLastName("last");
+        user.setEmail(userName + next + "@hospital.com");
+        user.setPhoneNumber("90000" + next);
+        user.setPinCode(110001);
+        user.setGender(Gender.FEMALE);
+        user.setAddress("some address");
+        user.setDateOfBirth(LocalDate.of(1980, 4, 1));
+        user.setStatus(AccountStatus.APPROVED);
+        return user;
+    }
+
+    private static Set<String> roleNamesOf(User user) {
+        return user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
+    }
+}
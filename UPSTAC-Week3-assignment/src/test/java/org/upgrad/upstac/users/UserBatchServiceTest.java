@@ -0,0 +1,196 @@
+package org.upgrad.upstac.users;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.BatchItemResult;
+import org.upgrad.upstac.users.credentials.PasswordHasher;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.models.RegisterRequestItem;
+import org.upgrad.upstac.users.roles.Role;
+import org.upgrad.upstac.users.roles.RoleService;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class UserBatchServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    UserBatchRepository userBatchRepository;
+
+    @Mock
+    RoleService roleService;
+
+    @Mock
+    PasswordHasher passwordHasher;
+
+    @InjectMocks
+    UserBatchService userBatchService;
+
+
+    @Test
+    public void valid_rows_are_inserted_and_duplicates_fail_on_their_own() {
+
+        //Arrange
+        RegisterRequestItem doctor = createRegisterRequest("doctor1", "doctor1@hospital.com", "9000000001", UserRole.DOCTOR);
+        RegisterRequestItem tester = createRegisterRequest("tester1", "tester1@hospital.com", "9000000002", UserRole.TESTER);
+        RegisterRequestItem sameEmail = createRegisterRequest("tester2", "tester1@hospital.com", "9000000003", UserRole.TESTER);
+        RegisterRequestItem existing = createRegisterRequest("doctor", "doctor@hospital.com", "9000000004", UserRole.DOCTOR);
+        RegisterRequestItem authority = createRegisterRequest("gov", "gov@hospital.com", "9000000005", UserRole.GOVERNMENT_AUTHORITY);
+
+        Mockito.when(userRepository.findUserNamesIn(any())).thenReturn(Collections.singletonList("doctor"));
+        Mockito.when(userRepository.findEmailsIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(userRepository.findPhoneNumbersIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(passwordHasher.encodeAll(Arrays.asList("password", "password"))).thenReturn(Arrays.asList("hash1", "hash2"));
+        Mockito.when(roleService.findByRole(UserRole.DOCTOR)).thenReturn(createRole(UserRole.DOCTOR));
+        Mockito.when(roleService.findByRole(UserRole.TESTER)).thenReturn(createRole(UserRole.TESTER));
+
+        Map<String, Long> ids = new HashMap<>();
+        ids.put("doctor1", 11L);
+        ids.put("tester1", 12L);
+        Mockito.when(userBatchRepository.insertAll(any())).thenReturn(ids);
+
+        //Act
+        List<BatchItemResult> results = userBatchService.addUsers(Arrays.asList(doctor, tester, sameEmail, existing, authority));
+
+        //Assert
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(11L, results.get(0).getId());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(12L, results.get(1).getId());
+        assertEquals("Row 3: User with Same email already exists tester1@hospital.com", results.get(2).getMessage());
+        assertEquals("Row 4: Username already exists doctor", results.get(3).getMessage());
+        assertFalse(results.get(4).isSuccess());
+
+        ArgumentCaptor<List<User>> inserted = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(userBatchRepository).insertAll(inserted.capture());
+        assertEquals("hash1", inserted.getValue().get(0).getPassword());
+        assertEquals(AccountStatus.APPROVED, inserted.getValue().get(1).getStatus());
+        assertEquals("TESTER", inserted.getValue().get(1).getRoles().iterator().next().getName());
+    }
+
+    @Test
+    public void rejected_row_does_not_take_its_user_name() {
+
+        //Arrange
+        RegisterRequestItem tester = createRegisterRequest("tester1", "tester1@hospital.com", "9000000001", UserRole.TESTER);
+        RegisterRequestItem sameEmail = createRegisterRequest("tester2", "tester1@hospital.com", "9000000002", UserRole.TESTER);
+        RegisterRequestItem retry = createRegisterRequest("tester2", "tester2@hospital.com", "9000000003", UserRole.TESTER);
+
+        Mockito.when(userRepository.findUserNamesIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(userRepository.findEmailsIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(userRepository.findPhoneNumbersIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(passwordHasher.encodeAll(any())).thenReturn(Arrays.asList("hash1", "hash2"));
+        Mockito.when(roleService.findByRole(UserRole.TESTER)).thenReturn(createRole(UserRole.TESTER));
+
+        Map<String, Long> ids = new HashMap<>();
+        ids.put("tester1", 11L);
+        ids.put("tester2", 12L);
+        Mockito.when(userBatchRepository.insertAll(any())).thenReturn(ids);
+
+        //Act
+        List<BatchItemResult> results = userBatchService.addUsers(Arrays.asList(tester, sameEmail, retry));
+
+        //Assert
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("Row 2: User with Same email already exists tester1@hospital.com", results.get(1).getMessage());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(12L, results.get(2).getId());
+    }
+
+    @Test
+    public void values_differing_only_in_case_are_duplicates() {
+
+        //Arrange
+        RegisterRequestItem alice = createRegisterRequest("Alice", "alice@hospital.com", "9000000001", UserRole.TESTER);
+        RegisterRequestItem lowerCase = createRegisterRequest("alice", "other@hospital.com", "9000000002", UserRole.TESTER);
+        RegisterRequestItem existingEmail = createRegisterRequest("bob", "Doctor@Hospital.com", "9000000003", UserRole.TESTER);
+
+        Mockito.when(userRepository.findUserNamesIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(userRepository.findEmailsIn(any())).thenReturn(Collections.singletonList("DOCTOR@hospital.com"));
+        Mockito.when(userRepository.findPhoneNumbersIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(passwordHasher.encodeAll(any())).thenReturn(Collections.singletonList("hash1"));
+        Mockito.when(roleService.findByRole(UserRole.TESTER)).thenReturn(createRole(UserRole.TESTER));
+        Mockito.when(userBatchRepository.insertAll(any())).thenReturn(Collections.singletonMap("Alice", 11L));
+
+        //Act
+        List<BatchItemResult> results = userBatchService.addUsers(Arrays.asList(alice, lowerCase, existingEmail));
+
+        //Assert
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("Row 2: Username already exists alice", results.get(1).getMessage());
+        assertEquals("Row 3: User with Same email already exists Doctor@Hospital.com", results.get(2).getMessage());
+        Mockito.verify(userRepository).findEmailsIn(new HashSet<>(Arrays.asList("alice@hospital.com", "other@hospital.com", "doctor@hospital.com")));
+    }
+
+    @Test
+    public void chunk_that_cannot_be_inserted_fails_its_rows() {
+
+        //Arrange
+        Mockito.when(userRepository.findUserNamesIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(userRepository.findEmailsIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(userRepository.findPhoneNumbersIn(any())).thenReturn(Collections.emptyList());
+        Mockito.when(passwordHasher.encodeAll(any())).thenReturn(Collections.singletonList("hash1"));
+        Mockito.when(roleService.findByRole(UserRole.DOCTOR)).thenReturn(createRole(UserRole.DOCTOR));
+        Mockito.when(userBatchRepository.insertAll(any())).thenThrow(new RuntimeException("uk_user_email"));
+
+        //Act
+        List<BatchItemResult> results = userBatchService.addUsers(Collections.singletonList(
+                createRegisterRequest("doctor1", "doctor1@hospital.com", "9000000001", UserRole.DOCTOR)));
+
+        //Assert
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("Could not be saved, please resend", results.get(0).getMessage());
+    }
+
+    @Test
+    public void more_rows_than_allowed_are_rejected() {
+
+        List<RegisterRequestItem> registerRequests = new ArrayList<>();
+        for (int i = 0; i <= UserBatchService.MAX_ITEMS; i++)
+            registerRequests.add(new RegisterRequestItem());
+
+        assertThrows(AppException.class, () -> userBatchService.addUsers(registerRequests));
+    }
+
+
+    private RegisterRequestItem createRegisterRequest(String userName, String email, String phoneNumber, UserRole role) {
+        RegisterRequestItem registerRequest = new RegisterRequestItem();
+        registerRequest.setUserName(userName);
+        registerRequest.setPassword("password");
+        registerRequest.setEmail(email);
+        registerRequest.setPhoneNumber(phoneNumber);
+        registerRequest.setDateOfBirth("1980-04-01");
+        registerRequest.setRole(role);
+        return registerRequest;
+    }
+
+    private Role createRole(UserRole userRole) {
+        Role role = new Role();
+        role.setId((long) userRole.ordinal() + 1);
+        role.setName(userRole.name());
+        return role;
+    }
+}
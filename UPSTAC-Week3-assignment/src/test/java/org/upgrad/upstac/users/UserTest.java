@@ -0,0 +1,89 @@
+package org.upgrad.upstac.users;
+
+import org.junit.jupiter.api.Test;
+import org.upgrad.upstac.users.roles.Role;
+import org.upgrad.upstac.users.roles.UserRole;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserTest {
+
+
+    @Test
+    public void when_roles_set_expect_checks_answered_from_mask() {
+
+        //Arrange
+        User user = new User();
+        user.setRoles(new HashSet<>(Arrays.asList(createRole("TESTER"), createRole("doctor"))));
+
+        //Act & Assert
+        assertTrue(user.doesRoleIsTester());
+        assertTrue(user.doesRoleIsDoctor());
+        assertFalse(user.doesRoleIsUser());
+        assertTrue(user.doesUserHasRole("Tester"));
+        assertFalse(user.doesUserHasRole("NOT_A_ROLE"));
+        assertEquals(UserRole.TESTER.bit() | UserRole.DOCTOR.bit(), user.roleMask());
+    }
+
+
+    @Test
+    public void when_roles_replaced_expect_mask_resolved_again() {
+
+        //Arrange
+        User user = new User();
+        user.setRoles(Collections.singleton(createRole("USER")));
+        assertTrue(user.doesRoleIsUser());
+
+        //Act
+        user.setRoles(Collections.singleton(createRole("GOVERNMENT_AUTHORITY")));
+
+        //Assert
+        assertFalse(user.doesRoleIsUser());
+        assertTrue(user.doesRoleIsAuthority());
+    }
+
+
+    @Test
+    public void when_user_has_no_roles_expect_no_role_matched() {
+
+        assertFalse(new User().doesRoleIsAuthority());
+    }
+
+
+    @Test
+    public void when_copy_changed_expect_original_untouched() {
+
+        //Arrange
+        User user = new User();
+        user.setId(3L);
+        user.setUserName("tester");
+        user.setEmail("tester@hospital.com");
+        user.setTokenVersion(2);
+        user.setRoles(new HashSet<>(Collections.singleton(createRole("TESTER"))));
+
+        //Act
+        User copy = user.copy();
+        copy.setEmail("changed@hospital.com");
+        copy.setTokenVersion(3);
+        copy.getRoles().add(createRole("DOCTOR"));
+
+        //Assert
+        assertEquals(3L, copy.getId());
+        assertEquals("tester", copy.getUserName());
+        assertTrue(copy.doesRoleIsTester());
+        assertEquals("tester@hospital.com", user.getEmail());
+        assertEquals(2, user.getTokenVersion());
+        assertEquals(1, user.getRoles().size());
+    }
+
+
+    private Role createRole(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+}
@@ -0,0 +1,122 @@
+package org.upgrad.upstac.users.credentials;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptivePasswordEncoderTest {
+
+    //The lowest costs keep the test fast, calibration never picks them
+    AdaptivePasswordEncoder adaptivePasswordEncoder = new AdaptivePasswordEncoder(HashAlgorithm.BCRYPT, 5);
+
+
+    @Test
+    public void when_hash_written_before_prefixes_expect_it_checked_and_upgraded() {
+
+        //Arrange
+        String legacyHash = new BCryptPasswordEncoder(4).encode("password");
+
+        //Act & Assert
+        assertTrue(adaptivePasswordEncoder.matches("password", legacyHash));
+        assertFalse(adaptivePasswordEncoder.matches("wrong", legacyHash));
+        assertTrue(adaptivePasswordEncoder.upgradeEncoding(legacyHash));
+    }
+
+
+    @Test
+    public void when_hash_written_with_configured_cost_expect_no_upgrade() {
+
+        //Act
+        String hash = adaptivePasswordEncoder.encode("password");
+
+        //Assert
+        assertTrue(hash.startsWith("{bcrypt@5}"));
+        assertTrue(adaptivePasswordEncoder.matches("password", hash));
+        assertFalse(adaptivePasswordEncoder.upgradeEncoding(hash));
+    }
+
+
+    @Test
+    public void when_algorithm_changed_expect_old_hashes_checked_and_rewritten() {
+
+        //Arrange
+        String otherAlgorithm = new AdaptivePasswordEncoder(HashAlgorithm.PBKDF2, 1000).encode("password");
+
+        //Act & Assert
+        assertTrue(adaptivePasswordEncoder.matches("password", otherAlgorithm));
+        assertFalse(adaptivePasswordEncoder.matches("wrong", otherAlgorithm));
+        assertTrue(adaptivePasswordEncoder.upgradeEncoding(otherAlgorithm));
+    }
+
+
+    @Test
+    public void when_pbkdf2_iterations_changed_expect_hashes_checked_with_their_own_iterations() {
+
+        //Arrange
+        AdaptivePasswordEncoder pbkdf2 = new AdaptivePasswordEncoder(HashAlgorithm.PBKDF2, 3000);
+        String hash = new AdaptivePasswordEncoder(HashAlgorithm.PBKDF2, 1000).encode("password");
+
+        //Act & Assert
+        assertTrue(pbkdf2.matches("password", hash));
+        assertTrue(pbkdf2.upgradeEncoding(hash));
+    }
+
+
+    @Test
+    public void when_cost_differs_within_the_band_expect_hashes_kept() {
+
+        //Arrange
+        AdaptivePasswordEncoder bcrypt = new AdaptivePasswordEncoder(HashAlgorithm.BCRYPT, 6);
+        String oneStepBelow = adaptivePasswordEncoder.encode("password");
+        String higherCost = bcrypt.encode("password");
+
+        //Act & Assert
+        assertFalse(bcrypt.upgradeEncoding(oneStepBelow));
+        assertFalse(adaptivePasswordEncoder.upgradeEncoding(higherCost));
+        assertTrue(new AdaptivePasswordEncoder(HashAlgorithm.BCRYPT, 7).upgradeEncoding(oneStepBelow));
+        assertFalse(new AdaptivePasswordEncoder(HashAlgorithm.PBKDF2, 2000).upgradeEncoding("{pbkdf2@1000}abc"));
+    }
+
+
+    @Test
+    public void when_cost_lowered_expect_costlier_hashes_rewritten_at_the_new_cost() {
+
+        //Arrange
+        AdaptivePasswordEncoder bcrypt = new AdaptivePasswordEncoder(HashAlgorithm.BCRYPT, 10);
+        String costlier = new AdaptivePasswordEncoder(HashAlgorithm.BCRYPT, 12).encode("password");
+
+        //Act
+        boolean rewritten = bcrypt.matches("password", costlier) && bcrypt.upgradeEncoding(costlier);
+        String rehashed = bcrypt.encode("password");
+
+        //Assert
+        assertTrue(rewritten);
+        assertTrue(rehashed.startsWith("{bcrypt@10}"));
+        assertTrue(bcrypt.matches("password", rehashed));
+        assertFalse(bcrypt.upgradeEncoding(rehashed));
+        assertTrue(new AdaptivePasswordEncoder(HashAlgorithm.PBKDF2, 1000).upgradeEncoding("{pbkdf2@3000}abc"));
+    }
+
+
+    @Test
+    public void when_prefix_unknown_or_cost_out_of_range_expect_no_match() {
+
+        assertFalse(adaptivePasswordEncoder.matches("password", "{md5@1}5f4dcc3b5aa765d61d8327deb882cf99"));
+        assertFalse(adaptivePasswordEncoder.matches("password", "{bcrypt@99}$2a$99$abc"));
+        assertFalse(adaptivePasswordEncoder.matches("password", "{bcrypt}$2a$10$abc"));
+        assertFalse(adaptivePasswordEncoder.matches("password", null));
+    }
+
+
+    @Test
+    public void when_calibrating_expect_cost_kept_between_default_and_max() {
+
+        assertEquals(HashAlgorithm.BCRYPT.getDefaultCost(), HashAlgorithm.BCRYPT.costFor(0.01));
+        assertEquals(HashAlgorithm.BCRYPT.getCalibrationCost() + 3, HashAlgorithm.BCRYPT.costFor(8));
+        assertEquals(HashAlgorithm.BCRYPT.getMaxCost(), HashAlgorithm.BCRYPT.costFor(1e12));
+        assertEquals(370000, HashAlgorithm.PBKDF2.costFor(37));
+        assertEquals(HashAlgorithm.PBKDF2.getMaxCost(), HashAlgorithm.PBKDF2.costFor(1e12));
+        assertThrows(IllegalArgumentException.class, () -> HashAlgorithm.ARGON2.checkCost(0));
+    }
+}
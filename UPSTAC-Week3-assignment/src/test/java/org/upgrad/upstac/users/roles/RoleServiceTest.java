@@ -0,0 +1,76 @@
+package org.upgrad.upstac.users.roles;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class RoleServiceTest {
+
+    @Mock
+    RoleRepository roleRepository;
+
+    @InjectMocks
+    RoleService roleService;
+
+
+    @Test
+    public void when_roles_preloaded_expect_lookups_served_without_database() {
+
+        //Arrange
+        Role tester = createRole(UserRole.TESTER);
+        Role doctor = createRole(UserRole.DOCTOR);
+        Mockito.when(roleRepository.findAll()).thenReturn(Arrays.asList(tester, doctor));
+        roleService.refresh();
+
+        //Act & Assert
+        assertSame(tester, roleService.getForTester());
+        assertSame(doctor, roleService.getForDoctor());
+        assertSame(tester, roleService.getForTester());
+        Mockito.verify(roleRepository, Mockito.times(1)).findAll();
+    }
+
+
+    @Test
+    public void when_role_saved_expect_it_served_from_memory() {
+
+        //Arrange
+        Role user = createRole(UserRole.USER);
+        Mockito.when(roleRepository.findAll()).thenReturn(Collections.emptyList(), Collections.singletonList(user));
+        roleService.refresh();
+
+        //Act
+        roleService.saveRoleFor(UserRole.USER);
+
+        //Assert
+        Mockito.verify(roleRepository).save(any());
+        assertSame(user, roleService.getForUser());
+        Mockito.verify(roleRepository, Mockito.times(2)).findAll();
+    }
+
+
+    @Test
+    public void when_roles_table_empty_expect_initialization_checked_with_count() {
+
+        Mockito.when(roleRepository.count()).thenReturn(0L);
+
+        assertTrue(roleService.shouldInitialize());
+        Mockito.verify(roleRepository, Mockito.never()).findAll();
+    }
+
+
+    private Role createRole(UserRole userRole) {
+        Role role = new Role();
+        role.setName(userRole.name());
+        return role;
+    }
+}